@@ -0,0 +1,48 @@
+package com.example.realtimecomparison.benchmark;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilitários compartilhados pelos benchmarks
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * ObjectMapper equivalente ao configurado pelo Spring Boot (java.time como ISO-8601)
+     */
+    static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * Notificação já persistida, com id atribuído
+     */
+    static Notification notification(long id) {
+        Notification notification = new Notification("Nova notificação #" + id);
+        notification.setId(id);
+        return notification;
+    }
+
+    /**
+     * Notificações com ids consecutivos a partir de 1
+     */
+    static List<Notification> notifications(int count) {
+        List<Notification> notifications = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            notifications.add(notification(i));
+        }
+        return notifications;
+    }
+}
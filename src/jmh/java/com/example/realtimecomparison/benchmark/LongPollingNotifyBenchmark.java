@@ -0,0 +1,83 @@
+package com.example.realtimecomparison.benchmark;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.service.FanoutExecutor;
+import com.example.realtimecomparison.service.LongPollingManager;
+import com.example.realtimecomparison.service.MetricsService;
+import com.example.realtimecomparison.service.NotificationLog;
+import com.example.realtimecomparison.service.TransportMeters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de LongPollingManager.notifyClients para entregar uma notificação a N clientes em espera
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LongPollingNotifyBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int waitingClients;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private LongPollingManager manager;
+    private FanoutExecutor fanoutExecutor;
+    private Notification notification;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NotificationLog notificationLog = new NotificationLog(4096, BenchmarkSupport.objectMapper());
+        notification = BenchmarkSupport.notification(1);
+        notificationLog.append(notification);
+
+        fanoutExecutor = new FanoutExecutor(virtualThreads, 256);
+        manager = new LongPollingManager(0, 100);
+        ReflectionTestUtils.setField(manager, "metricsService", new MetricsService());
+        ReflectionTestUtils.setField(manager, "notificationLog", notificationLog);
+        ReflectionTestUtils.setField(manager, "fanoutExecutor", fanoutExecutor);
+        ReflectionTestUtils.setField(manager, "transportMeters", new TransportMeters(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Cada entrega remove os clientes notificados; eles são registrados de novo antes de cada invocação
+     */
+    @Setup(Level.Invocation)
+    public void registerClients() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < waitingClients; i++) {
+            manager.addClient("client-" + i, false, 0, null, now, new DeferredResult<>());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fanoutExecutor.destroy();
+    }
+
+    @Benchmark
+    public void notifyClients() {
+        manager.notifyClients(notification);
+    }
+}
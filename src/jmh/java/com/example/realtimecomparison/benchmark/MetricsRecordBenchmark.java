@@ -0,0 +1,54 @@
+package com.example.realtimecomparison.benchmark;
+
+import com.example.realtimecomparison.service.MetricsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsService.recordRequest com uma e várias threads registrando na mesma técnica
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsRecordBenchmark {
+
+    private MetricsService metricsService;
+
+    @Setup
+    public void setUp() {
+        metricsService = new MetricsService();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordRequestSingleThread() {
+        metricsService.recordRequest("long", ThreadLocalRandom.current().nextLong(0, 500));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordRequestContended() {
+        metricsService.recordRequest("long", ThreadLocalRandom.current().nextLong(0, 500));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void incrementNotificationCountContended() {
+        metricsService.incrementNotificationCount("websocket");
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.realtimecomparison.benchmark;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.repository.NotificationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas do NotificationRepository contra o H2 em memória com 10^3 a 10^6 linhas.
+ * Apenas a camada JPA é iniciada (sem servidor web, broker ou agendamentos).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dspring.devtools.restart.enabled=false"})
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NotificationRepositoryBenchmark {
+
+    // Notificações mais recentes que o cursor/timestamp consultado, como num poll típico
+    private static final int RECENT = 100;
+    private static final int INSERT_BATCH = 10_000;
+    private static final Pageable PAGE = PageRequest.of(0, 50);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private NotificationRepository repository;
+    private Instant since;
+    private long afterId;
+    private long beforeId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RepositoryBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                     "--spring.jpa.show-sql=false",
+                     "--logging.level.com.example=WARN",
+                     "--logging.level.org.springframework.web=WARN");
+        repository = context.getBean(NotificationRepository.class);
+
+        // Inserção direta via JDBC em lotes: o saveAll do JPA tornaria o setup de 10^6 linhas impraticável
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Instant base = Instant.now().minusMillis(rows);
+        for (int start = 0; start < rows; start += INSERT_BATCH) {
+            List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+            for (int i = start; i < Math.min(start + INSERT_BATCH, rows); i++) {
+                batch.add(new Object[]{"Nova notificação #" + i, Notification.DEFAULT_TOPIC, Timestamp.from(base.plusMillis(i))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO notifications (message, topic, created_at) VALUES (?, ?, ?)", batch);
+        }
+
+        since = base.plusMillis(rows - RECENT - 1);
+        afterId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM notifications", Long.class) - RECENT;
+        // Página no meio da tabela: o custo do keyset não deve depender da posição
+        beforeId = afterId - rows / 2;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Notification> findNotificationsAfter() {
+        return repository.findNotificationsAfter(since);
+    }
+
+    @Benchmark
+    public List<Notification> findNotificationsAfterId() {
+        return repository.findNotificationsAfterId(afterId);
+    }
+
+    @Benchmark
+    public List<Notification> findLatestNotifications() {
+        return repository.findLatestNotifications(PAGE);
+    }
+
+    @Benchmark
+    public List<Notification> findNotificationsBefore() {
+        return repository.findNotificationsBefore(beforeId, PAGE);
+    }
+
+    @Benchmark
+    public long countNotificationsAfter() {
+        return repository.countNotificationsAfter(since);
+    }
+
+    /**
+     * Contexto mínimo: DataSource, JPA e repositórios da aplicação
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Notification.class)
+    @EnableJpaRepositories(basePackageClasses = NotificationRepository.class)
+    static class RepositoryBenchmarkConfiguration {
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.realtimecomparison.benchmark;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.service.NotificationLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON de notificações: Jackson a cada envio versus os payloads pré-serializados do NotificationLog
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NotificationSerializationBenchmark {
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+    private NotificationLog notificationLog;
+    private Notification notification;
+    private List<Notification> batch;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkSupport.objectMapper();
+        notificationLog = new NotificationLog(4096, objectMapper);
+        batch = BenchmarkSupport.notifications(batchSize);
+        batch.forEach(notificationLog::append);
+        notification = batch.get(0);
+    }
+
+    @Benchmark
+    public byte[] jacksonSingle() throws Exception {
+        return objectMapper.writeValueAsBytes(notification);
+    }
+
+    @Benchmark
+    public byte[] jacksonBatch() throws Exception {
+        return objectMapper.writeValueAsBytes(batch);
+    }
+
+    @Benchmark
+    public byte[] preEncodedBatch() {
+        return notificationLog.toJsonArray(batch);
+    }
+}
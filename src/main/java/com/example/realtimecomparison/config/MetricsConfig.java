@@ -0,0 +1,65 @@
+package com.example.realtimecomparison.config;
+
+import com.example.realtimecomparison.service.LongPollingManager;
+import com.example.realtimecomparison.service.RawWebSocketManager;
+import com.example.realtimecomparison.service.RetentionService;
+import com.example.realtimecomparison.service.SlowConsumerManager;
+import com.example.realtimecomparison.service.SseManager;
+import com.example.realtimecomparison.service.SubscriptionRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges e contadores lidos sob demanda (no scrape), sem custo no caminho quente: apenas
+ * expõem no Micrometer os contadores que os gerenciadores de cada transporte já mantêm.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder transportGauges(LongPollingManager longPollingManager,
+                                       SseManager sseManager,
+                                       RawWebSocketManager rawWebSocketManager,
+                                       SlowConsumerManager slowConsumerManager,
+                                       SubscriptionRegistry subscriptionRegistry,
+                                       RetentionService retentionService) {
+        return registry -> {
+            Gauge.builder("realtime.longpolling.waiting", longPollingManager, LongPollingManager::getWaitingClientsCount)
+                    .description("Clientes de long polling aguardando notificações")
+                    .register(registry);
+            Gauge.builder("realtime.sse.connections", sseManager, SseManager::getConnectedClientsCount)
+                    .description("Conexões SSE abertas")
+                    .register(registry);
+            Gauge.builder("realtime.websocket.sessions", rawWebSocketManager, RawWebSocketManager::getSessionCount)
+                    .description("Sessões WebSocket abertas")
+                    .tag("protocol", "raw")
+                    .register(registry);
+            Gauge.builder("realtime.websocket.sessions", slowConsumerManager, SlowConsumerManager::getSessionCount)
+                    .description("Sessões WebSocket abertas")
+                    .tag("protocol", "stomp")
+                    .register(registry);
+            Gauge.builder("realtime.websocket.outbound.buffered", slowConsumerManager, SlowConsumerManager::getBufferedBytes)
+                    .description("Bytes aguardando envio nos buffers de saída STOMP")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("realtime.websocket.outbound.dropped", slowConsumerManager, SlowConsumerManager::getDroppedCount)
+                    .description("Mensagens STOMP descartadas por buffer cheio")
+                    .register(registry);
+            FunctionCounter.builder("realtime.websocket.outbound.conflated", slowConsumerManager, SlowConsumerManager::getConflatedCount)
+                    .description("Mensagens STOMP substituídas por uma mais nova do mesmo destino")
+                    .register(registry);
+            FunctionCounter.builder("realtime.websocket.outbound.disconnects", slowConsumerManager, SlowConsumerManager::getDisconnectCount)
+                    .description("Sessões STOMP desconectadas por consumo lento")
+                    .register(registry);
+            Gauge.builder("realtime.subscriptions", subscriptionRegistry, SubscriptionRegistry::getSubscriptionCount)
+                    .description("Assinaturas com cursor registrado")
+                    .register(registry);
+            FunctionCounter.builder("realtime.retention.purged", retentionService, RetentionService::getRowsPurged)
+                    .description("Notificações apagadas pela retenção")
+                    .register(registry);
+        };
+    }
+}
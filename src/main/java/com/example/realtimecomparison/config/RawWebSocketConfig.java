@@ -0,0 +1,23 @@
+package com.example.realtimecomparison.config;
+
+import com.example.realtimecomparison.service.RawWebSocketManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class RawWebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private RawWebSocketManager rawWebSocketManager;
+
+    @Override
+    public void registerWebSocketHandlers(@org.springframework.lang.NonNull WebSocketHandlerRegistry registry) {
+        // Endpoint WebSocket puro, sem STOMP nem SockJS, para medir o custo dessas camadas
+        registry.addHandler(rawWebSocketManager, "/ws-raw")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -1,15 +1,45 @@
 package com.example.realtimecomparison.config;
 
+import com.example.realtimecomparison.service.SlowConsumerManager;
+import com.example.realtimecomparison.service.StompChannelMetrics;
+import com.example.realtimecomparison.service.StompSessionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    @Value("${realtime.websocket.virtual-channel-pool-size:1024}")
+    private int virtualChannelPoolSize;
+    
+    @Value("${realtime.websocket.outbound.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+    
+    @Value("${realtime.websocket.outbound.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+    
+    @Autowired
+    private SlowConsumerManager slowConsumerManager;
+    
+    @Autowired
+    private StompSessionRegistry stompSessionRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Override
     public void configureMessageBroker(@org.springframework.lang.NonNull MessageBrokerRegistry config) {
         // Habilitar broker de mensagens simples em memória
@@ -26,4 +56,43 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*") // Permitir CORS para desenvolvimento
                 .withSockJS(); // Fallback para navegadores que não suportam WebSocket
     }
+    
+    @Override
+    public void configureWebSocketTransport(@org.springframework.lang.NonNull WebSocketTransportRegistration registration) {
+        // Limites por sessão; o buffer de saída limitado e a política de overflow ficam no SlowConsumerManager
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(bufferSizeLimit)
+                .addDecoratorFactory(slowConsumerManager::decorate, stompSessionRegistry::decorate);
+    }
+    
+    @Override
+    public void configureClientInboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
+        registration.interceptors(new StompChannelMetrics(meterRegistry, "inbound"),
+                stompSessionRegistry.getInboundInterceptor());
+        if (virtualThreads) {
+            registration.taskExecutor(virtualThreadExecutor("ws-inbound-"));
+        }
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
+        registration.interceptors(new StompChannelMetrics(meterRegistry, "outbound"),
+                stompSessionRegistry.getOutboundInterceptor());
+        if (virtualThreads) {
+            registration.taskExecutor(virtualThreadExecutor("ws-outbound-"));
+        }
+    }
+    
+    /**
+     * Pool dos canais do broker com threads virtuais; o tamanho só limita a concorrência,
+     * já que cada thread virtual bloqueada não ocupa uma thread do sistema operacional
+     */
+    private ThreadPoolTaskExecutor virtualThreadExecutor(String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(Thread.ofVirtual().name(prefix, 0).factory());
+        executor.setCorePoolSize(virtualChannelPoolSize);
+        executor.setMaxPoolSize(virtualChannelPoolSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
@@ -1,15 +1,16 @@
 package com.example.realtimecomparison.controller;
 
+import com.example.realtimecomparison.service.DashboardService;
 import com.example.realtimecomparison.service.MetricsService;
-import com.example.realtimecomparison.service.NotificationService;
+import com.example.realtimecomparison.service.MetricsStreamPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,41 +21,31 @@ public class DashboardController {
     private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
     
     @Autowired
-    private NotificationService notificationService;
+    private DashboardService dashboardService;
     
     @Autowired
     private MetricsService metricsService;
     
+    @Autowired
+    private MetricsStreamPublisher metricsStreamPublisher;
+    
     /**
-     * Obtém dados completos para o dashboard
+     * Obtém dados completos para o dashboard a partir do snapshot em memória (sem acesso ao banco)
      */
     @GetMapping("/data")
     public ResponseEntity<Map<String, Object>> getDashboardData() {
         try {
+            DashboardService.DashboardSnapshot snapshot = dashboardService.getSnapshot();
             Map<String, Object> dashboardData = new HashMap<>();
             
-            // Obter resumo das métricas
-            MetricsService.MetricsSummary metricsSummary = metricsService.getSummary();
-            dashboardData.put("metrics", metricsSummary);
-            
-            // Obter últimas notificações
-            List<Map<String, Object>> latestNotifications = notificationService.getLatestNotifications(10).stream()
-                    .map(notification -> {
-                        Map<String, Object> map = new java.util.HashMap<>();
-                        map.put("id", notification.getId());
-                        map.put("message", notification.getMessage());
-                        map.put("createdAt", notification.getCreatedAt().toString());
-                        map.put("delivered", notification.isDelivered());
-                        return map;
-                    })
-                    .toList();
-            dashboardData.put("latestNotifications", latestNotifications);
+            dashboardData.put("metrics", snapshot.getMetrics());
+            dashboardData.put("latestNotifications", snapshot.getLatestNotifications());
             
             // Estatísticas gerais
             Map<String, Object> generalStats = Map.of(
-                "totalNotifications", notificationService.countNotificationsAfter(java.time.Instant.EPOCH),
-                "undeliveredNotifications", notificationService.getUndeliveredNotifications().size(),
-                "timestamp", System.currentTimeMillis()
+                "totalNotifications", snapshot.getTotalNotifications(),
+                "pendingNotifications", snapshot.getPendingNotifications(),
+                "timestamp", snapshot.getTimestamp()
             );
             dashboardData.put("generalStats", generalStats);
             
@@ -68,23 +59,21 @@ public class DashboardController {
     }
     
     /**
-     * Obtém estatísticas em tempo real (para atualizações via AJAX)
+     * Obtém estatísticas em tempo real (para atualizações via AJAX) a partir do snapshot em memória
      */
     @GetMapping("/realtime")
     public ResponseEntity<Map<String, Object>> getRealtimeStats() {
         try {
+            DashboardService.DashboardSnapshot snapshot = dashboardService.getSnapshot();
             Map<String, Object> realtimeStats = new HashMap<>();
             
-            // Obter métricas atualizadas
-            MetricsService.MetricsSummary summary = metricsService.getSummary();
-            realtimeStats.put("metrics", summary);
+            realtimeStats.put("metrics", snapshot.getMetrics());
             
-            // Contar notificações não entregues
-            int undeliveredCount = notificationService.getUndeliveredNotifications().size();
-            realtimeStats.put("undeliveredCount", undeliveredCount);
+            // Notificações ainda não confirmadas pelo cliente mais atrasado
+            realtimeStats.put("pendingCount", snapshot.getPendingNotifications());
             
-            // Timestamp da última atualização
-            realtimeStats.put("lastUpdate", System.currentTimeMillis());
+            // Instante em que o snapshot foi montado
+            realtimeStats.put("lastUpdate", snapshot.getTimestamp());
             
             logger.debug("Estatísticas em tempo real solicitadas");
             return ResponseEntity.ok(realtimeStats);
@@ -95,6 +84,15 @@ public class DashboardController {
         }
     }
     
+    /**
+     * Estado completo do stream de métricas, entregue uma única vez a quem assina /app/metrics;
+     * as alterações seguintes chegam como deltas em /topic/metrics
+     */
+    @SubscribeMapping("/metrics")
+    public MetricsStreamPublisher.MetricsUpdate subscribeMetrics() {
+        return metricsStreamPublisher.getFullState();
+    }
+    
     /**
      * Endpoint para resetar todas as métricas e dados
      */
@@ -0,0 +1,76 @@
+package com.example.realtimecomparison.controller;
+
+import com.example.realtimecomparison.service.DeliveryLatencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/delivery")
+@CrossOrigin(origins = "*")
+public class DeliveryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryController.class);
+
+    @Autowired
+    private DeliveryLatencyService deliveryLatencyService;
+
+    /**
+     * Sincronização de relógio: devolve o instante do cliente (?t=) junto com o do servidor
+     */
+    @GetMapping("/clock")
+    public ResponseEntity<DeliveryLatencyService.ClockSample> clock(@RequestParam(value = "t", defaultValue = "0") long clientTime) {
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-store")
+                .body(deliveryLatencyService.clock(clientTime));
+    }
+
+    /**
+     * Confirmações de entrega dos clientes HTTP (short/long polling e SSE)
+     */
+    @PostMapping("/ack")
+    public ResponseEntity<?> acknowledge(@RequestBody DeliveryLatencyService.DeliveryAck ack) {
+        long arrivalNanos = System.nanoTime();
+        try {
+            int recorded = deliveryLatencyService.acknowledge(ack, arrivalNanos);
+            return ResponseEntity.ok(Map.of("recorded", recorded));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Erro ao registrar confirmações de entrega", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Confirmações de entrega dos clientes STOMP, enviadas pela própria conexão (/app/delivery/ack)
+     */
+    @MessageMapping("/delivery/ack")
+    public void acknowledgeStomp(@Payload DeliveryLatencyService.DeliveryAck ack) {
+        long arrivalNanos = System.nanoTime();
+        try {
+            deliveryLatencyService.acknowledge(ack, arrivalNanos);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Confirmação STOMP rejeitada: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Contadores das confirmações (medidas por relógio monotônico, por offset ou descartadas)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<DeliveryLatencyService.DeliveryStats> getStats() {
+        try {
+            return ResponseEntity.ok(deliveryLatencyService.getStats());
+        } catch (Exception e) {
+            logger.error("Erro ao obter estatísticas de entrega", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -1,23 +1,29 @@
 package com.example.realtimecomparison.controller;
 
 import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.service.LatencyHistogram;
 import com.example.realtimecomparison.service.LongPollingManager;
 import com.example.realtimecomparison.service.MetricsService;
 import com.example.realtimecomparison.service.NotificationService;
+import com.example.realtimecomparison.service.Topics;
+import com.example.realtimecomparison.service.TransportMeters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.async.DeferredResult;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/long-polling")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = NotificationService.NEXT_CURSOR_HEADER)
 public class LongPollingController {
     
     private static final Logger logger = LoggerFactory.getLogger(LongPollingController.class);
@@ -31,65 +37,65 @@ public class LongPollingController {
     @Autowired
     private MetricsService metricsService;
     
+    @Autowired
+    private TransportMeters transportMeters;
+    
     /**
-     * Endpoint para long polling - aguarda até 30 segundos por novas notificações
+     * Endpoint para long polling - aguarda até 30 segundos por novas notificações.
+     * O cursor para a próxima requisição (?after=) é retornado no header X-Next-Cursor
      */
     @GetMapping("/notifications")
-    public DeferredResult<ResponseEntity<List<Notification>>> getNotifications(
+    public DeferredResult<ResponseEntity<byte[]>> getNotifications(
+            @RequestParam(value = "after", required = false) Long after,
             @RequestParam(value = "since", required = false) String sinceParam,
-            @RequestParam(value = "clientId", required = false) String clientIdParam) {
+            @RequestParam(value = "clientId", required = false) String clientIdParam,
+            @RequestParam(value = "topics", required = false) String topicsParam) {
         
         long startTime = System.currentTimeMillis();
         String clientId = clientIdParam != null ? clientIdParam : UUID.randomUUID().toString();
         
-        DeferredResult<ResponseEntity<List<Notification>>> deferredResult = new DeferredResult<>(30000L);
-        
-        // Configurar callbacks
-        deferredResult.onTimeout(() -> {
-            long latency = System.currentTimeMillis() - startTime;
-            metricsService.recordRequest("long", latency);
-            
-            logger.debug("Long polling timeout para cliente {} após {}ms", clientId, latency);
-            deferredResult.setResult(ResponseEntity.ok(List.of()));
-        });
-        
-        deferredResult.onCompletion(() -> {
-            long latency = System.currentTimeMillis() - startTime;
-            logger.debug("Long polling completado para cliente {} em {}ms", clientId, latency);
-        });
-        
-        deferredResult.onError(throwable -> {
-            long latency = System.currentTimeMillis() - startTime;
-            logger.error("Erro no long polling para cliente {} após {}ms", clientId, latency, throwable);
-            deferredResult.setResult(ResponseEntity.internalServerError().build());
-        });
+        DeferredResult<ResponseEntity<byte[]>> deferredResult = new DeferredResult<>(30000L);
+        Set<String> topics;
+        try {
+            topics = Topics.parse(topicsParam);
+        } catch (IllegalArgumentException e) {
+            deferredResult.setResult(ResponseEntity.badRequest().build());
+            return deferredResult;
+        }
+        long cursor = notificationService.resolveCursor(after, clientIdParam);
+        // Tudo até a sequência atual é examinado abaixo; lida antes da consulta para não passar de nada não visto
+        long head = notificationService.getLastSequence();
+        List<Notification> available;
         
-        // Verificar se já existem notificações não entregues
+        // Verificar se já existem notificações posteriores ao cursor do cliente
         try {
-            List<Notification> existingNotifications;
             
-            if (sinceParam != null && !sinceParam.isEmpty()) {
+            if (after == null && sinceParam != null && !sinceParam.isEmpty()) {
                 Instant since = Instant.parse(sinceParam);
-                existingNotifications = notificationService.getNotificationsAfter(since);
+                available = notificationService.getNotificationsAfter(since);
             } else {
-                existingNotifications = notificationService.getUndeliveredNotifications();
+                available = notificationService.getNotificationsAfterCursor(cursor);
             }
+            List<Notification> existingNotifications = Topics.filter(available, topics);
             
             if (!existingNotifications.isEmpty()) {
                 // Se já existem notificações, retornar imediatamente
                 long latency = System.currentTimeMillis() - startTime;
                 metricsService.recordRequest("long", latency);
+                metricsService.incrementNotificationCount("long", existingNotifications.size());
+                transportMeters.recordPollResponse("long", existingNotifications.size());
                 
-                // Marcar como entregues
-                existingNotifications.forEach(notification -> {
-                    notificationService.markAsDelivered(notification.getId());
-                    metricsService.incrementNotificationCount("long");
-                });
+                // Avançar o cursor confirmado do cliente, inclusive sobre notificações de outros tópicos
+                long nextCursor = NotificationService.nextCursor(cursor, head, available);
+                notificationService.acknowledge(clientIdParam, nextCursor);
                 
                 logger.info("Long polling: {} notificações existentes retornadas imediatamente para cliente {} em {}ms", 
                            existingNotifications.size(), clientId, latency);
                 
-                deferredResult.setResult(ResponseEntity.ok(existingNotifications));
+                deferredResult.setResult(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(NotificationService.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                        .body(notificationService.toJson(existingNotifications)));
                 return deferredResult;
             }
             
@@ -99,30 +105,19 @@ public class LongPollingController {
             return deferredResult;
         }
         
-        // Se não há notificações existentes, adicionar cliente para aguardar
-        DeferredResult<List<Notification>> internalResult = new DeferredResult<>(30000L);
-        
-        internalResult.onTimeout(() -> {
-            long latency = System.currentTimeMillis() - startTime;
-            metricsService.recordRequest("long", latency);
-            logger.debug("Long polling interno timeout para cliente {} após {}ms", clientId, latency);
-        });
-        
-        internalResult.onCompletion(() -> {
-            long latency = System.currentTimeMillis() - startTime;
-            logger.debug("Long polling interno completado para cliente {} em {}ms", clientId, latency);
-        });
-        
-        internalResult.onError(throwable -> {
-            long latency = System.currentTimeMillis() - startTime;
-            logger.error("Erro no long polling interno para cliente {} após {}ms", clientId, latency, throwable);
-            deferredResult.setResult(ResponseEntity.internalServerError().build());
-        });
-        
-        // Adicionar cliente para aguardar
-        longPollingManager.addClient(clientId, internalResult);
+        // Se não há notificações existentes, o gerenciador completa a resposta quando houver novidade.
+        // O cliente espera a partir do que já foi examinado (notificações de outros tópicos incluídas),
+        // e um timeout devolve e confirma esse cursor: um assinante de tópico raro não relê a mesma faixa
+        long scanned = NotificationService.nextCursor(cursor, head, available);
+        longPollingManager.addClient(clientId, clientIdParam != null, scanned, topics, startTime, deferredResult);
         logger.debug("Cliente {} adicionado para long polling. Aguardando notificações...", clientId);
         
+        // Notificações publicadas entre a verificação e o registro seriam perdidas até o timeout
+        List<Notification> missed = notificationService.getNotificationsAfterCursor(scanned);
+        if (!missed.isEmpty()) {
+            longPollingManager.notifyClient(clientId, missed);
+        }
+        
         return deferredResult;
     }
     
@@ -133,7 +128,13 @@ public class LongPollingController {
     public ResponseEntity<LongPollingStats> getStats() {
         try {
             int waitingClients = longPollingManager.getWaitingClientsCount();
-            LongPollingStats stats = new LongPollingStats(waitingClients);
+            LongPollingStats stats = new LongPollingStats(
+                waitingClients,
+                longPollingManager.getCoalesceWindowMs(),
+                longPollingManager.getCoalesceMaxBatch(),
+                longPollingManager.getBatchSizes(),
+                longPollingManager.getSubscriberCounts()
+            );
             
             logger.debug("Estatísticas de long polling: {} clientes aguardando", waitingClients);
             
@@ -181,5 +182,9 @@ public class LongPollingController {
     @lombok.Value
     public static class LongPollingStats {
         int waitingClients;
+        long coalesceWindowMs;
+        int coalesceMaxBatch;
+        LatencyHistogram.Snapshot batchSizes;
+        Map<String, Integer> waitingByTopic;
     }
 }
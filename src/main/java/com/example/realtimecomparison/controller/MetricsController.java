@@ -1,6 +1,7 @@
 package com.example.realtimecomparison.controller;
 
 import com.example.realtimecomparison.entity.PerformanceMetrics;
+import com.example.realtimecomparison.service.LatencyHistogram;
 import com.example.realtimecomparison.service.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.util.List;
 import java.util.Optional;
 
@@ -71,6 +74,34 @@ public class MetricsController {
         }
     }
     
+    /**
+     * Obtém uso de CPU, heap e threads da JVM do servidor (amostrado pelo gerador de carga)
+     */
+    @GetMapping("/runtime")
+    public ResponseEntity<RuntimeStats> getRuntime() {
+        try {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            double processCpuLoad = -1;
+            if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+                processCpuLoad = os.getProcessCpuLoad();
+            }
+            
+            RuntimeStats stats = new RuntimeStats(
+                processCpuLoad,
+                heap.getUsed(),
+                heap.getCommitted(),
+                heap.getMax(),
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                Runtime.getRuntime().availableProcessors(),
+                System.currentTimeMillis()
+            );
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            logger.error("Erro ao obter estatísticas da JVM", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Reseta todas as métricas
      */
@@ -102,7 +133,7 @@ public class MetricsController {
     }
     
     /**
-     * Obtém estatísticas comparativas das três técnicas
+     * Obtém estatísticas comparativas das técnicas
      */
     @GetMapping("/comparison")
     public ResponseEntity<ComparisonStats> getComparison() {
@@ -114,6 +145,11 @@ public class MetricsController {
                     .findFirst()
                     .orElse(new PerformanceMetrics("short"));
             
+            PerformanceMetrics shortNotModifiedMetrics = allMetrics.stream()
+                    .filter(m -> "short-304".equals(m.getTechnique()))
+                    .findFirst()
+                    .orElse(new PerformanceMetrics("short-304"));
+            
             PerformanceMetrics longMetrics = allMetrics.stream()
                     .filter(m -> "long".equals(m.getTechnique()))
                     .findFirst()
@@ -124,10 +160,29 @@ public class MetricsController {
                     .findFirst()
                     .orElse(new PerformanceMetrics("websocket"));
             
+            PerformanceMetrics websocketRawMetrics = allMetrics.stream()
+                    .filter(m -> "websocket-raw".equals(m.getTechnique()))
+                    .findFirst()
+                    .orElse(new PerformanceMetrics("websocket-raw"));
+            
+            PerformanceMetrics sseMetrics = allMetrics.stream()
+                    .filter(m -> "sse".equals(m.getTechnique()))
+                    .findFirst()
+                    .orElse(new PerformanceMetrics("sse"));
+            
             ComparisonStats comparison = new ComparisonStats(
-                new TechniqueStats("Short Polling", shortMetrics),
-                new TechniqueStats("Long Polling", longMetrics),
-                new TechniqueStats("WebSocket", websocketMetrics)
+                new TechniqueStats("Short Polling", shortMetrics, metricsService.getLatencySnapshot("short"),
+                        metricsService.getDeliverySnapshot("short")),
+                new TechniqueStats("Short Polling (304)", shortNotModifiedMetrics, metricsService.getLatencySnapshot("short-304"),
+                        metricsService.getDeliverySnapshot("short-304")),
+                new TechniqueStats("Long Polling", longMetrics, metricsService.getLatencySnapshot("long"),
+                        metricsService.getDeliverySnapshot("long")),
+                new TechniqueStats("WebSocket", websocketMetrics, metricsService.getLatencySnapshot("websocket"),
+                        metricsService.getDeliverySnapshot("websocket")),
+                new TechniqueStats("WebSocket (raw)", websocketRawMetrics, metricsService.getLatencySnapshot("websocket-raw"),
+                        metricsService.getDeliverySnapshot("websocket-raw")),
+                new TechniqueStats("Server-Sent Events", sseMetrics, metricsService.getLatencySnapshot("sse"),
+                        metricsService.getDeliverySnapshot("sse"))
             );
             
             logger.debug("Estatísticas comparativas solicitadas");
@@ -149,13 +204,21 @@ public class MetricsController {
         long notificationCount;
         double averageLatency;
         String lastUpdate;
+        LatencyHistogram.Snapshot latency;
+        // Latência fim a fim (publicação -> recebimento no cliente), comparável entre as técnicas
+        double averageDeliveryLatency;
+        LatencyHistogram.Snapshot delivery;
         
-        public TechniqueStats(String name, PerformanceMetrics metrics) {
+        public TechniqueStats(String name, PerformanceMetrics metrics, LatencyHistogram.Snapshot latency,
+                              LatencyHistogram.Snapshot delivery) {
             this.name = name;
             this.requestCount = metrics.getRequestCount();
             this.notificationCount = metrics.getNotificationCount();
             this.averageLatency = metrics.getAverageLatency();
             this.lastUpdate = metrics.getLastUpdate().toString();
+            this.latency = latency;
+            this.averageDeliveryLatency = metrics.getAverageDeliveryLatency();
+            this.delivery = delivery;
         }
     }
     
@@ -165,7 +228,24 @@ public class MetricsController {
     @lombok.Value
     public static class ComparisonStats {
         TechniqueStats shortPolling;
+        TechniqueStats shortPollingNotModified;
         TechniqueStats longPolling;
         TechniqueStats websocket;
+        TechniqueStats websocketRaw;
+        TechniqueStats sse;
+    }
+    
+    /**
+     * Classe para uso de recursos da JVM (processCpuLoad entre 0 e 1; -1 se indisponível)
+     */
+    @lombok.Value
+    public static class RuntimeStats {
+        double processCpuLoad;
+        long heapUsedBytes;
+        long heapCommittedBytes;
+        long heapMaxBytes;
+        int threadCount;
+        int availableProcessors;
+        long timestamp;
     }
 }
@@ -0,0 +1,82 @@
+package com.example.realtimecomparison.controller;
+
+import com.example.realtimecomparison.service.NotificationProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/producer")
+@CrossOrigin(origins = "*")
+public class ProducerAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProducerAdminController.class);
+
+    @Autowired
+    private NotificationProducer notificationProducer;
+
+    /**
+     * Obtém a configuração e os contadores do produtor de notificações
+     */
+    @GetMapping
+    public ResponseEntity<NotificationProducer.ProducerStatus> getStatus() {
+        try {
+            return ResponseEntity.ok(notificationProducer.getStatus());
+        } catch (Exception e) {
+            logger.error("Erro ao obter estado do produtor", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Altera a configuração do produtor em tempo de execução (apenas os campos enviados)
+     */
+    @PutMapping
+    public ResponseEntity<?> updateSettings(@RequestBody Map<String, Object> changes) {
+        try {
+            notificationProducer.update(changes);
+            return ResponseEntity.ok(notificationProducer.getStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Erro ao alterar configuração do produtor", e);
+            return ResponseEntity.internalServerError().body("Erro ao alterar configuração do produtor");
+        }
+    }
+
+    /**
+     * Inicia o produtor
+     */
+    @PostMapping("/start")
+    public ResponseEntity<NotificationProducer.ProducerStatus> start() {
+        try {
+            notificationProducer.start();
+            return ResponseEntity.ok(notificationProducer.getStatus());
+        } catch (IllegalStateException e) {
+            logger.warn("Produtor não iniciado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(notificationProducer.getStatus());
+        } catch (Exception e) {
+            logger.error("Erro ao iniciar o produtor", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Para o produtor; as notificações já enfileiradas ainda são publicadas, até o prazo de stop-timeout-ms
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<NotificationProducer.ProducerStatus> stop() {
+        try {
+            notificationProducer.stop();
+            return ResponseEntity.ok(notificationProducer.getStatus());
+        } catch (Exception e) {
+            logger.error("Erro ao parar o produtor", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
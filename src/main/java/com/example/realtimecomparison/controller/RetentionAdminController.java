@@ -0,0 +1,46 @@
+package com.example.realtimecomparison.controller;
+
+import com.example.realtimecomparison.service.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/retention")
+@CrossOrigin(origins = "*")
+public class RetentionAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionAdminController.class);
+
+    @Autowired
+    private RetentionService retentionService;
+
+    /**
+     * Obtém a configuração e os contadores da retenção (linhas mantidas e apagadas, duração das passadas)
+     */
+    @GetMapping
+    public ResponseEntity<RetentionService.RetentionStatus> getStatus() {
+        try {
+            return ResponseEntity.ok(retentionService.getStatus());
+        } catch (Exception e) {
+            logger.error("Erro ao obter estado da retenção", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Executa uma passada de retenção imediatamente
+     */
+    @PostMapping("/run")
+    public ResponseEntity<RetentionService.RetentionStatus> run() {
+        try {
+            retentionService.purge();
+            return ResponseEntity.ok(retentionService.getStatus());
+        } catch (Exception e) {
+            logger.error("Erro ao executar a retenção", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -3,18 +3,26 @@ package com.example.realtimecomparison.controller;
 import com.example.realtimecomparison.entity.Notification;
 import com.example.realtimecomparison.service.MetricsService;
 import com.example.realtimecomparison.service.NotificationService;
+import com.example.realtimecomparison.service.Topics;
+import com.example.realtimecomparison.service.TransportMeters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/short-polling")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {NotificationService.NEXT_CURSOR_HEADER, NotificationService.PREVIOUS_CURSOR_HEADER, HttpHeaders.ETAG})
 public class ShortPollingController {
     
     private static final Logger logger = LoggerFactory.getLogger(ShortPollingController.class);
@@ -25,53 +33,78 @@ public class ShortPollingController {
     @Autowired
     private MetricsService metricsService;
     
+    @Autowired
+    private TransportMeters transportMeters;
+    
     /**
-     * Endpoint para short polling - retorna notificações não entregues
-     * Cliente deve chamar este endpoint a cada 5 segundos
+     * Endpoint para short polling - retorna as notificações posteriores ao cursor do cliente
+     * Cliente deve chamar este endpoint a cada 5 segundos, reenviando em ?after= o cursor
+     * recebido no header X-Next-Cursor ou identificando-se com ?clientId=
      */
     @GetMapping("/notifications")
-    public ResponseEntity<List<Notification>> getNotifications(
-            @RequestParam(value = "since", required = false) String sinceParam) {
+    public ResponseEntity<byte[]> getNotifications(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "since", required = false) String sinceParam,
+            @RequestParam(value = "clientId", required = false) String clientId,
+            @RequestParam(value = "topics", required = false) String topicsParam,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         long startTime = System.currentTimeMillis();
         
         try {
+            Set<String> topics = Topics.parse(topicsParam);
+            long cursor = notificationService.resolveCursor(after, clientId);
+            Instant since = after == null && sinceParam != null && !sinceParam.isEmpty() ? Instant.parse(sinceParam) : null;
+            
+            // Versão lida antes da consulta: a resposta contém pelo menos tudo até ela
+            long head = notificationService.getLastSequence();
+            String eTag = eTag(head, cursor, since, topics);
+            if (isNotModified(ifNoneMatch, eTag)) {
+                // Nada novo para este cursor, mas o cliente continua ativo
+                notificationService.acknowledge(clientId, cursor);
+                return notModified(eTag, startTime);
+            }
+            
             List<Notification> notifications;
             
-            if (sinceParam != null && !sinceParam.isEmpty()) {
+            if (since != null) {
                 // Buscar notificações criadas após o timestamp fornecido
-                Instant since = Instant.parse(sinceParam);
                 notifications = notificationService.getNotificationsAfter(since);
                 logger.debug("Short polling: {} notificações encontradas desde {}", 
                            notifications.size(), since);
             } else {
-                // Buscar todas as notificações não entregues
-                notifications = notificationService.getUndeliveredNotifications();
-                logger.debug("Short polling: {} notificações não entregues encontradas", 
-                           notifications.size());
+                // Buscar notificações com sequência maior que o cursor
+                notifications = notificationService.getNotificationsAfterCursor(cursor);
+                logger.debug("Short polling: {} notificações encontradas após cursor {}", 
+                           notifications.size(), cursor);
             }
             
-            // Marcar notificações como entregues
-            notifications.forEach(notification -> {
-                notificationService.markAsDelivered(notification.getId());
-            });
+            // Avançar o cursor confirmado do cliente, inclusive sobre notificações de outros tópicos;
+            // com a página do banco cheia, só até o fim dela
+            long nextCursor = NotificationService.nextCursor(cursor, head, notifications);
+            notificationService.acknowledge(clientId, nextCursor);
+            notifications = Topics.filter(notifications, topics);
             
             // Calcular latência
             long latency = System.currentTimeMillis() - startTime;
             
             // Registrar métricas
             metricsService.recordRequest("short", latency);
-            if (!notifications.isEmpty()) {
-                for (int i = 0; i < notifications.size(); i++) {
-                    metricsService.incrementNotificationCount("short");
-                }
-            }
+            metricsService.incrementNotificationCount("short", notifications.size());
+            transportMeters.recordPollResponse("short", notifications.size());
             
             logger.info("Short polling: {} notificações retornadas em {}ms", 
                        notifications.size(), latency);
             
-            return ResponseEntity.ok(notifications);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(NotificationService.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                    .body(notificationService.toJson(notifications));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Erro no short polling", e);
             return ResponseEntity.internalServerError().build();
@@ -79,16 +112,24 @@ public class ShortPollingController {
     }
     
     /**
-     * Endpoint para buscar as últimas N notificações
+     * Endpoint para buscar as últimas N notificações. Páginas mais antigas são obtidas com
+     * ?before= igual ao header X-Previous-Cursor da resposta anterior (paginação por keyset)
      */
     @GetMapping("/notifications/latest")
-    public ResponseEntity<List<Notification>> getLatestNotifications(
-            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    public ResponseEntity<byte[]> getLatestNotifications(
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         long startTime = System.currentTimeMillis();
         
         try {
-            List<Notification> notifications = notificationService.getLatestNotifications(limit);
+            String eTag = eTag(notificationService.getLastSequence(), before, limit);
+            if (isNotModified(ifNoneMatch, eTag)) {
+                return notModified(eTag, startTime);
+            }
+            
+            List<Notification> notifications = notificationService.getNotificationsBefore(before, limit);
             
             long latency = System.currentTimeMillis() - startTime;
             metricsService.recordRequest("short", latency);
@@ -96,7 +137,15 @@ public class ShortPollingController {
             logger.debug("Short polling latest: {} notificações retornadas em {}ms", 
                         notifications.size(), latency);
             
-            return ResponseEntity.ok(notifications);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON);
+            Long previousCursor = NotificationService.previousCursor(notifications, limit);
+            if (previousCursor != null) {
+                response.header(NotificationService.PREVIOUS_CURSOR_HEADER, String.valueOf(previousCursor));
+            }
+            return response.body(notificationService.toJson(notifications));
             
         } catch (Exception e) {
             logger.error("Erro ao buscar últimas notificações", e);
@@ -105,22 +154,34 @@ public class ShortPollingController {
     }
     
     /**
-     * Endpoint para contar notificações criadas após um timestamp
+     * Endpoint para contar notificações criadas após um cursor ou timestamp, opcionalmente
+     * apenas dos tópicos informados
      */
     @GetMapping("/notifications/count")
     public ResponseEntity<Long> getNotificationCount(
-            @RequestParam(value = "since", required = false) String sinceParam) {
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "since", required = false) String sinceParam,
+            @RequestParam(value = "clientId", required = false) String clientId,
+            @RequestParam(value = "topics", required = false) String topicsParam,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         long startTime = System.currentTimeMillis();
         
         try {
+            Set<String> topics = Topics.parse(topicsParam);
+            long cursor = notificationService.resolveCursor(after, clientId);
+            Instant since = after == null && sinceParam != null && !sinceParam.isEmpty() ? Instant.parse(sinceParam) : null;
+            String eTag = eTag(notificationService.getLastSequence(), cursor, since, topics);
+            if (isNotModified(ifNoneMatch, eTag)) {
+                return notModified(eTag, startTime);
+            }
+            
             long count;
             
-            if (sinceParam != null && !sinceParam.isEmpty()) {
-                Instant since = Instant.parse(sinceParam);
-                count = notificationService.countNotificationsAfter(since);
+            if (since != null) {
+                count = notificationService.countNotificationsAfter(since, topics);
             } else {
-                count = notificationService.getUndeliveredNotifications().size();
+                count = notificationService.countNotificationsAfterCursor(cursor, topics);
             }
             
             long latency = System.currentTimeMillis() - startTime;
@@ -128,14 +189,71 @@ public class ShortPollingController {
             
             logger.debug("Short polling count: {} notificações em {}ms", count, latency);
             
-            return ResponseEntity.ok(count);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(count);
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Erro ao contar notificações", e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    /**
+     * ETag com a última sequência publicada e os próprios parâmetros que determinam a resposta
+     * (cursor, instante, tópicos em ordem, página), separados por ';': muda quando há notificação nova
+     * ou quando o cliente pede outra consulta. Nenhum componente contém ';' nem aspas (tópicos são
+     * validados e o instante já vem normalizado).
+     */
+    private static String eTag(long head, Object... inputs) {
+        StringBuilder eTag = new StringBuilder("\"").append(head);
+        for (Object input : inputs) {
+            eTag.append(';');
+            if (input instanceof Set<?> topics) {
+                eTag.append(topics.stream().map(String::valueOf).sorted().collect(Collectors.joining(",")));
+            } else if (input != null) {
+                eTag.append(input);
+            }
+        }
+        return eTag.append('"').toString();
+    }
+    
+    /**
+     * Compara o If-None-Match do cliente com o ETag atual (aceita lista e validadores fracos)
+     */
+    private static boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Responde 304 sem consultar o repositório, registrando a métrica separada "short-304"
+     */
+    private <T> ResponseEntity<T> notModified(String eTag, long startTime) {
+        long latency = System.currentTimeMillis() - startTime;
+        metricsService.recordRequest("short-304", latency);
+        transportMeters.recordPollResponse("short-304", 0);
+        logger.debug("Short polling: 304 Not Modified (ETag {}) em {}ms", eTag, latency);
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+    
     /**
      * Endpoint para resetar métricas do short polling
      */
@@ -143,6 +261,7 @@ public class ShortPollingController {
     public ResponseEntity<String> resetMetrics() {
         try {
             metricsService.resetMetrics("short");
+            metricsService.resetMetrics("short-304");
             logger.info("Métricas do short polling resetadas");
             return ResponseEntity.ok("Métricas do short polling resetadas com sucesso");
         } catch (Exception e) {
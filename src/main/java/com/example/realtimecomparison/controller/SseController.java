@@ -0,0 +1,139 @@
+package com.example.realtimecomparison.controller;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.service.LatencyHistogram;
+import com.example.realtimecomparison.service.MetricsService;
+import com.example.realtimecomparison.service.NotificationService;
+import com.example.realtimecomparison.service.SseManager;
+import com.example.realtimecomparison.service.Topics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+@RestController
+@RequestMapping("/api/sse")
+@CrossOrigin(origins = "*")
+public class SseController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseController.class);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private SseManager sseManager;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${realtime.sse.timeout-ms:300000}")
+    private long timeoutMs;
+
+    /**
+     * Endpoint Server-Sent Events - mantém a conexão aberta e envia cada notificação como evento.
+     * Ao reconectar, o navegador envia Last-Event-ID e o servidor reenvia o que foi perdido.
+     */
+    @GetMapping(value = "/notifications", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "clientId", required = false) String clientIdParam,
+            @RequestParam(value = "topics", required = false) String topicsParam) {
+
+        Set<String> topics;
+        try {
+            topics = Topics.parse(topicsParam);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        long startTime = System.currentTimeMillis();
+        String clientId = clientIdParam != null ? clientIdParam : UUID.randomUUID().toString();
+
+        Long resumeFrom = after;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                logger.debug("Last-Event-ID inválido para cliente SSE {}: {}", clientId, lastEventId);
+            }
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        long cursor = notificationService.resolveCursor(resumeFrom, null);
+
+        // O replay é lido em páginas depois do registro; broadcasts concorrentes ficam retidos até ele ser enviado
+        LongFunction<List<Notification>> replay = resumeFrom != null
+                ? notificationService::getNotificationsAfterCursor
+                : null;
+        int replayed = sseManager.addClient(clientId, cursor, topics, emitter, replay);
+        if (replayed > 0) {
+            logger.info("SSE: {} notificações reenviadas para cliente {} a partir do evento {}",
+                       replayed, clientId, cursor);
+        }
+
+        long latency = System.currentTimeMillis() - startTime;
+        metricsService.recordRequest("sse", latency);
+        logger.debug("Cliente SSE {} conectado em {}ms", clientId, latency);
+
+        return emitter;
+    }
+
+    /**
+     * Endpoint para obter estatísticas das conexões SSE
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<SseStats> getStats() {
+        try {
+            SseStats stats = new SseStats(
+                sseManager.getConnectedClientsCount(),
+                sseManager.getEventsSent(),
+                sseManager.getBroadcastCost(),
+                sseManager.getSubscriberCounts()
+            );
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            logger.error("Erro ao obter estatísticas do SSE", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Endpoint para resetar métricas do SSE
+     */
+    @PostMapping("/metrics/reset")
+    public ResponseEntity<String> resetMetrics() {
+        try {
+            metricsService.resetMetrics("sse");
+            logger.info("Métricas do SSE resetadas");
+            return ResponseEntity.ok("Métricas do SSE resetadas com sucesso");
+        } catch (Exception e) {
+            logger.error("Erro ao resetar métricas do SSE", e);
+            return ResponseEntity.internalServerError().body("Erro ao resetar métricas");
+        }
+    }
+
+    /**
+     * Classe para estatísticas do SSE
+     */
+    @lombok.Value
+    public static class SseStats {
+        int connectedClients;
+        long eventsSent;
+        LatencyHistogram.Snapshot broadcastCostMicros;
+        Map<String, Integer> subscribersByTopic;
+    }
+}
@@ -1,15 +1,20 @@
 package com.example.realtimecomparison.controller;
 
 import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.service.LatencyHistogram;
 import com.example.realtimecomparison.service.MetricsService;
 import com.example.realtimecomparison.service.NotificationService;
+import com.example.realtimecomparison.service.RawWebSocketManager;
+import com.example.realtimecomparison.service.SlowConsumerManager;
+import com.example.realtimecomparison.service.StompSessionRegistry;
+import com.example.realtimecomparison.service.Topics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,7 +23,7 @@ import java.util.Map;
 
 @Controller
 @RequestMapping("/api/websocket")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = NotificationService.PREVIOUS_CURSOR_HEADER)
 public class WebSocketController {
     
     private static final Logger logger = LoggerFactory.getLogger(WebSocketController.class);
@@ -30,22 +35,24 @@ public class WebSocketController {
     private MetricsService metricsService;
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private RawWebSocketManager rawWebSocketManager;
+    
+    @Autowired
+    private SlowConsumerManager slowConsumerManager;
+    
+    @Autowired
+    private StompSessionRegistry stompSessionRegistry;
     
     /**
-     * Endpoint REST para obter estatísticas do WebSocket
+     * Endpoint REST para obter estatísticas das sessões STOMP: agregados por transporte e destino
+     * e as ?top= sessões com mais bytes trocados
      */
     @GetMapping("/stats")
-    public ResponseEntity<WebSocketStats> getStats() {
+    public ResponseEntity<StompSessionRegistry.SessionStats> getStats(
+            @RequestParam(value = "top", defaultValue = "10") int top) {
         try {
-            // Simular estatísticas (em uma aplicação real, você manteria essas informações)
-            WebSocketStats stats = new WebSocketStats(
-                "WebSocket ativo",
-                "Conexão persistente",
-                "Tempo real"
-            );
-            
-            logger.debug("Estatísticas do WebSocket solicitadas");
+            StompSessionRegistry.SessionStats stats = stompSessionRegistry.getStats(top);
+            logger.debug("Estatísticas do WebSocket solicitadas: {} sessões", stats.getSessions());
             return ResponseEntity.ok(stats);
             
         } catch (Exception e) {
@@ -54,6 +61,41 @@ public class WebSocketController {
         }
     }
     
+    /**
+     * Endpoint REST para obter estatísticas do endpoint WebSocket puro (/ws-raw)
+     */
+    @GetMapping("/raw/stats")
+    public ResponseEntity<RawWebSocketStats> getRawStats() {
+        try {
+            RawWebSocketStats stats = new RawWebSocketStats(
+                rawWebSocketManager.getSessionCount(),
+                rawWebSocketManager.getConnections(),
+                rawWebSocketManager.getFramesSent(),
+                rawWebSocketManager.getBytesSent(),
+                rawWebSocketManager.getBroadcastCost(),
+                rawWebSocketManager.getSubscriberCounts()
+            );
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            logger.error("Erro ao obter estatísticas do WebSocket raw", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Endpoint REST para obter o estado dos buffers de saída das sessões STOMP
+     * (bytes em buffer, mensagens descartadas e conflacionadas, desconexões por consumo lento)
+     */
+    @GetMapping("/outbound/stats")
+    public ResponseEntity<SlowConsumerManager.OutboundStats> getOutboundStats() {
+        try {
+            return ResponseEntity.ok(slowConsumerManager.getStats());
+        } catch (Exception e) {
+            logger.error("Erro ao obter estatísticas dos buffers de saída WebSocket", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Endpoint REST para enviar notificação manual via WebSocket
      */
@@ -65,19 +107,17 @@ public class WebSocketController {
                 return ResponseEntity.badRequest().body("Mensagem é obrigatória");
             }
             
-            Notification notification = new Notification(message);
-            // Salvar notificação (usando o serviço)
-            notification = notificationService.notificationRepository.save(notification);
+            String topic = request.get("topic");
+            topic = topic == null || topic.isBlank() ? Notification.DEFAULT_TOPIC : Topics.validate(topic.trim());
             
-            // Enviar via WebSocket
-            messagingTemplate.convertAndSend("/topic/notifications", notification);
-            
-            // Registrar métricas
-            metricsService.incrementNotificationCount("websocket");
+            // Salvar e publicar pelo mesmo caminho das notificações automáticas
+            Notification notification = notificationService.publish(new Notification(message, topic));
             
             logger.info("Notificação manual enviada via WebSocket: {}", notification);
             return ResponseEntity.ok("Notificação enviada com sucesso");
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Erro ao enviar notificação via WebSocket", e);
             return ResponseEntity.internalServerError().body("Erro ao enviar notificação");
@@ -85,16 +125,18 @@ public class WebSocketController {
     }
     
     /**
-     * Endpoint REST para obter histórico de notificações
+     * Endpoint REST para obter histórico de notificações, paginado por keyset:
+     * a próxima página usa ?before= com o header X-Previous-Cursor da resposta
      */
     @GetMapping("/notifications/history")
-    public ResponseEntity<List<Notification>> getNotificationHistory(
+    public ResponseEntity<byte[]> getNotificationHistory(
+            @RequestParam(value = "before", required = false) Long before,
             @RequestParam(value = "limit", defaultValue = "50") int limit) {
         
         long startTime = System.currentTimeMillis();
         
         try {
-            List<Notification> notifications = notificationService.getLatestNotifications(limit);
+            List<Notification> notifications = notificationService.getNotificationsBefore(before, limit);
             
             long latency = System.currentTimeMillis() - startTime;
             metricsService.recordRequest("websocket", latency);
@@ -102,7 +144,13 @@ public class WebSocketController {
             logger.debug("Histórico de notificações: {} notificações retornadas em {}ms", 
                         notifications.size(), latency);
             
-            return ResponseEntity.ok(notifications);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON);
+            Long previousCursor = NotificationService.previousCursor(notifications, limit);
+            if (previousCursor != null) {
+                response.header(NotificationService.PREVIOUS_CURSOR_HEADER, String.valueOf(previousCursor));
+            }
+            return response.body(notificationService.toJson(notifications));
             
         } catch (Exception e) {
             logger.error("Erro ao obter histórico de notificações", e);
@@ -133,19 +181,20 @@ public class WebSocketController {
     public Notification handleNotification(Notification notification) {
         logger.debug("Mensagem recebida via WebSocket: {}", notification);
         
-        // Registrar métricas (WebSocket tem latência muito baixa)
-        metricsService.recordRequest("websocket", 1); // 1ms para WebSocket
-        
+        // A latência do WebSocket é medida pelas confirmações de entrega (/app/delivery/ack)
         return notification;
     }
     
     /**
-     * Classe para estatísticas do WebSocket
+     * Classe para estatísticas do WebSocket puro
      */
     @lombok.Value
-    public static class WebSocketStats {
-        String status;
-        String connectionType;
-        String latency;
+    public static class RawWebSocketStats {
+        int sessions;
+        long connections;
+        long framesSent;
+        long bytesSent;
+        LatencyHistogram.Snapshot broadcastCostMicros;
+        Map<String, Integer> sessionsByTopic;
     }
 }
@@ -0,0 +1,26 @@
+package com.example.realtimecomparison.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+@Entity
+@Table(name = "client_cursors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientCursor {
+    
+    @Id
+    @Column(name = "client_id", nullable = false)
+    private String clientId;
+    
+    // Última sequência de notificação confirmada pelo cliente
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+    
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -7,28 +7,50 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "notifications")
+// created_at, id atende às consultas por timestamp (since, contagem) sem varrer a tabela
+@Table(name = "notifications", indexes = @Index(name = "idx_notifications_created_at_id", columnList = "created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
     
+    /**
+     * Tamanho máximo da mensagem (o produtor de carga gera payloads de até esse tamanho)
+     */
+    public static final int MAX_MESSAGE_LENGTH = 16384;
+    
+    /**
+     * Tópico das notificações publicadas sem tópico explícito
+     */
+    public static final String DEFAULT_TOPIC = "general";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false)
+    @Column(nullable = false, length = MAX_MESSAGE_LENGTH)
     private String message;
     
+    @Column(nullable = false, length = 64)
+    private String topic = DEFAULT_TOPIC;
+    
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
     
-    @Column(nullable = false)
-    private boolean delivered = false;
+    /**
+     * Instante em que o servidor publicou a notificação (não persistido); é a origem da latência
+     * de entrega medida com as confirmações dos clientes
+     */
+    @Transient
+    private Instant publishedAt;
     
     public Notification(String message) {
+        this(message, DEFAULT_TOPIC);
+    }
+    
+    public Notification(String message, String topic) {
         this.message = message;
+        this.topic = topic;
         this.createdAt = Instant.now();
-        this.delivered = false;
     }
 }
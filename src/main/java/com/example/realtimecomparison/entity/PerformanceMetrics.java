@@ -24,6 +24,13 @@ public class PerformanceMetrics {
     @Column(name = "notification_count", nullable = false)
     private long notificationCount = 0;
     
+    // Latência de entrega (publicação -> recebimento no cliente), medida pelas confirmações dos clientes
+    @Column(name = "delivery_count", nullable = false)
+    private long deliveryCount = 0;
+    
+    @Column(name = "total_delivery_latency", nullable = false)
+    private long totalDeliveryLatency = 0;
+    
     @Column(name = "last_update", nullable = false)
     private Instant lastUpdate = Instant.now();
     
@@ -51,4 +58,8 @@ public class PerformanceMetrics {
     public double getAverageLatency() {
         return requestCount > 0 ? (double) totalLatency / requestCount : 0.0;
     }
+    
+    public double getAverageDeliveryLatency() {
+        return deliveryCount > 0 ? (double) totalDeliveryLatency / deliveryCount : 0.0;
+    }
 }
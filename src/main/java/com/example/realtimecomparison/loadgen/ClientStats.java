@@ -0,0 +1,76 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.example.realtimecomparison.service.LatencyHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de todos os clientes simulados de uma técnica, atualizados concorrentemente
+ */
+final class ClientStats {
+
+    final String technique;
+    final int clients;
+
+    // Relógio do servidor menos o do gerador, estimado antes da medição
+    private final long clockOffsetMs;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    ClientStats(String technique, int clients, long clockOffsetMs) {
+        this.technique = technique;
+        this.clients = clients;
+        this.clockOffsetMs = clockOffsetMs;
+    }
+
+    void recordRequest(long bytes) {
+        requests.increment();
+        bytesReceived.add(bytes);
+    }
+
+    void recordBytes(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Registra uma notificação entregue; a latência fim a fim é o instante de recebimento, convertido
+     * para o relógio do servidor, menos o publishedAt (createdAt para notificações lidas do banco)
+     */
+    void recordNotification(JsonNode notification, long receivedAtMillis) {
+        notifications.increment();
+        JsonNode publishedAt = notification.get("publishedAt");
+        if (publishedAt == null || !publishedAt.isTextual()) {
+            publishedAt = notification.get("createdAt");
+        }
+        if (publishedAt != null && publishedAt.isTextual()) {
+            long latencyMs = receivedAtMillis + clockOffsetMs - Instant.parse(publishedAt.asText()).toEpochMilli();
+            latency.record(Math.max(0, latencyMs));
+        }
+    }
+
+    LoadReport.TechniqueReport toReport() {
+        long requestCount = requests.sum();
+        long notificationCount = notifications.sum();
+        long bytes = bytesReceived.sum();
+        return new LoadReport.TechniqueReport(
+                technique,
+                clients,
+                requestCount,
+                notificationCount,
+                notificationCount > 0 ? (double) requestCount / notificationCount : 0.0,
+                bytes,
+                notificationCount > 0 ? (double) bytes / notificationCount : 0.0,
+                errors.sum(),
+                latency.snapshot());
+    }
+}
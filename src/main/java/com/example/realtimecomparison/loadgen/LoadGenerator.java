@@ -0,0 +1,276 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga headless: conecta N clientes simulados por técnica a uma instância local,
+ * publica notificações a uma taxa fixa e gera um relatório comparativo em JSON e HTML.
+ * Os clientes HTTP rodam em threads virtuais; os clientes STOMP usam o WebSocket assíncrono do JDK.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    // Maior que o timeout de 30s do long polling no servidor
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(40);
+    private static final int CLOCK_SAMPLES = 8;
+
+    private final LoadOptions options;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final AtomicLong published = new AtomicLong();
+    private final List<RuntimeSample> runtimeSamples = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.usage());
+            System.exit(2);
+            return;
+        }
+        if (options.shortPollingClients + options.longPollingClients + options.websocketClients == 0) {
+            System.err.println(LoadOptions.usage());
+            System.exit(2);
+            return;
+        }
+
+        LoadReport report = new LoadGenerator(options).run();
+        new ReportWriter(options.reportDir).write(report);
+        System.exit(0);
+    }
+
+    LoadReport run() throws Exception {
+        String startedAt = Instant.now().toString();
+        if (options.resetMetrics) {
+            post("/api/metrics/reset", "");
+        }
+
+        long clockOffsetMs = estimateClockOffset();
+        ClientStats shortStats = new ClientStats("short", options.shortPollingClients, clockOffsetMs);
+        ClientStats longStats = new ClientStats("long", options.longPollingClients, clockOffsetMs);
+        ClientStats websocketStats = new ClientStats("websocket", options.websocketClients, clockOffsetMs);
+        List<StompClient> stompClients = new ArrayList<>();
+
+        int total = options.shortPollingClients + options.longPollingClients + options.websocketClients;
+        long rampUpDelayNanos = total > 0 ? TimeUnit.SECONDS.toNanos(options.rampUpSeconds) / total : 0;
+        logger.info("Conectando {} clientes em {}s", total, options.rampUpSeconds);
+
+        for (int i = 0; i < options.websocketClients; i++) {
+            StompClient client = new StompClient(objectMapper, websocketStats);
+            stompClients.add(client);
+            client.connect(httpClient, options.baseUrl);
+            TimeUnit.NANOSECONDS.sleep(rampUpDelayNanos);
+        }
+        for (int i = 0; i < options.longPollingClients; i++) {
+            executor.execute(new PollingClient(httpClient, objectMapper, longStats,
+                    options.baseUrl + "/api/long-polling/notifications", "loadgen-long-" + i,
+                    0, REQUEST_TIMEOUT, () -> running));
+            TimeUnit.NANOSECONDS.sleep(rampUpDelayNanos);
+        }
+        for (int i = 0; i < options.shortPollingClients; i++) {
+            executor.execute(new PollingClient(httpClient, objectMapper, shortStats,
+                    options.baseUrl + "/api/short-polling/notifications", "loadgen-short-" + i,
+                    options.shortPollingIntervalMs, REQUEST_TIMEOUT, () -> running));
+            TimeUnit.NANOSECONDS.sleep(rampUpDelayNanos);
+        }
+
+        // A publicação e a amostragem do servidor começam após o ramp-up
+        long measureStart = System.currentTimeMillis();
+        CompletableFuture<Void> publisher = CompletableFuture.runAsync(this::publish, executor);
+        CompletableFuture<Void> sampler = CompletableFuture.runAsync(this::sampleRuntime, executor);
+        logger.info("Medindo por {}s", options.durationSeconds);
+        TimeUnit.SECONDS.sleep(options.durationSeconds);
+
+        running = false;
+        long measuredMillis = System.currentTimeMillis() - measureStart;
+        publisher.join();
+        sampler.join();
+        stompClients.forEach(StompClient::close);
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        List<LoadReport.TechniqueReport> techniques = new ArrayList<>();
+        for (ClientStats stats : List.of(shortStats, longStats, websocketStats)) {
+            if (stats.clients > 0) {
+                techniques.add(stats.toReport());
+            }
+        }
+        return new LoadReport(startedAt, measuredMillis, published.get(), options.toMap(), techniques, serverReport());
+    }
+
+    /**
+     * Publica notificações pela API REST na taxa configurada
+     */
+    private void publish() {
+        if (options.publishRate <= 0) {
+            return;
+        }
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.publishRate);
+        long next = System.nanoTime();
+        while (running) {
+            try {
+                String body = objectMapper.writeValueAsString(Map.of("message", "loadgen #" + (published.get() + 1)));
+                if (post("/api/websocket/send-notification", body) == 200) {
+                    published.incrementAndGet();
+                }
+                next += intervalNanos;
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Falha ao publicar notificação: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Amostra CPU e heap do servidor a cada segundo
+     */
+    private void sampleRuntime() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.baseUrl + "/api/metrics/runtime"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        while (running) {
+            try {
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() == 200) {
+                    JsonNode node = objectMapper.readTree(response.body());
+                    synchronized (runtimeSamples) {
+                        runtimeSamples.add(new RuntimeSample(
+                                node.path("processCpuLoad").asDouble(-1),
+                                node.path("heapUsedBytes").asLong(),
+                                node.path("threadCount").asInt()));
+                    }
+                }
+                TimeUnit.SECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.debug("Falha ao amostrar uso de recursos do servidor", e);
+            }
+        }
+    }
+
+    /**
+     * Estima o relógio do servidor menos o do gerador pela amostra de menor RTT de /api/delivery/clock
+     * (o erro fica limitado a RTT/2); 0 se o servidor não responder
+     */
+    private long estimateClockOffset() {
+        double bestRtt = Double.MAX_VALUE;
+        long offset = 0;
+        for (int i = 0; i < CLOCK_SAMPLES; i++) {
+            try {
+                long start = System.nanoTime();
+                HttpRequest request = HttpRequest.newBuilder(URI.create(options.baseUrl + "/api/delivery/clock"))
+                        .timeout(Duration.ofSeconds(5))
+                        .GET()
+                        .build();
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                long now = System.currentTimeMillis();
+                double rttMs = (System.nanoTime() - start) / 1_000_000.0;
+                if (response.statusCode() == 200 && rttMs < bestRtt) {
+                    long serverTime = objectMapper.readTree(response.body()).path("serverTime").asLong();
+                    bestRtt = rttMs;
+                    offset = Math.round(serverTime - (now - rttMs / 2));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.debug("Falha ao sincronizar relógio com o servidor", e);
+            }
+        }
+        if (bestRtt == Double.MAX_VALUE) {
+            logger.warn("Sem sincronização de relógio; latências assumem relógios iguais");
+        } else {
+            logger.info("Offset de relógio do servidor: {}ms (RTT {}ms)", offset, Math.round(bestRtt));
+        }
+        return offset;
+    }
+
+    private LoadReport.ServerReport serverReport() {
+        synchronized (runtimeSamples) {
+            double cpuTotal = 0;
+            double cpuMax = 0;
+            int cpuSamples = 0;
+            long heapMax = 0;
+            int threadsMax = 0;
+            for (RuntimeSample sample : runtimeSamples) {
+                if (sample.cpuLoad >= 0) {
+                    cpuTotal += sample.cpuLoad;
+                    cpuMax = Math.max(cpuMax, sample.cpuLoad);
+                    cpuSamples++;
+                }
+                heapMax = Math.max(heapMax, sample.heapUsedBytes);
+                threadsMax = Math.max(threadsMax, sample.threadCount);
+            }
+            return new LoadReport.ServerReport(runtimeSamples.size(),
+                    cpuSamples > 0 ? cpuTotal / cpuSamples : -1, cpuSamples > 0 ? cpuMax : -1, heapMax, threadsMax);
+        }
+    }
+
+    private int post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Amostra de /api/metrics/runtime
+     */
+    private static final class RuntimeSample {
+        final double cpuLoad;
+        final long heapUsedBytes;
+        final int threadCount;
+
+        RuntimeSample(double cpuLoad, long heapUsedBytes, int threadCount) {
+            this.cpuLoad = cpuLoad;
+            this.heapUsedBytes = heapUsedBytes;
+            this.threadCount = threadCount;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.realtimecomparison.loadgen;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opções de linha de comando do gerador de carga, no formato --nome=valor ou --nome valor
+ */
+final class LoadOptions {
+
+    String baseUrl = "http://localhost:8080";
+    int shortPollingClients = 0;
+    int longPollingClients = 0;
+    int websocketClients = 0;
+    long shortPollingIntervalMs = 5000;
+    int durationSeconds = 60;
+    int rampUpSeconds = 5;
+    double publishRate = 1.0;
+    boolean resetMetrics = true;
+    Path reportDir = Path.of("target", "loadgen");
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                values.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                values.put(arg.substring(2), args[++i]);
+            } else {
+                values.put(arg.substring(2), "true");
+            }
+        }
+
+        LoadOptions options = new LoadOptions();
+        values.forEach((name, value) -> {
+            switch (name) {
+                case "base-url" -> options.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "short" -> options.shortPollingClients = Integer.parseInt(value);
+                case "long" -> options.longPollingClients = Integer.parseInt(value);
+                case "websocket" -> options.websocketClients = Integer.parseInt(value);
+                case "short-interval-ms" -> options.shortPollingIntervalMs = Long.parseLong(value);
+                case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                case "ramp-up" -> options.rampUpSeconds = Integer.parseInt(value);
+                case "publish-rate" -> options.publishRate = Double.parseDouble(value);
+                case "reset-metrics" -> options.resetMetrics = Boolean.parseBoolean(value);
+                case "report-dir" -> options.reportDir = Path.of(value);
+                case "help" -> throw new IllegalArgumentException("Opções disponíveis:");
+                default -> throw new IllegalArgumentException("Opção desconhecida: --" + name);
+            }
+        });
+        return options;
+    }
+
+    static String usage() {
+        return """
+                Uso: LoadGenerator [opções]
+                  --base-url URL            instância alvo (padrão http://localhost:8080)
+                  --short N                 clientes de short polling
+                  --long N                  clientes de long polling
+                  --websocket N             clientes STOMP via WebSocket
+                  --short-interval-ms MS    intervalo do short polling (padrão 5000)
+                  --duration S              duração da medição em segundos (padrão 60)
+                  --ramp-up S               tempo para conectar todos os clientes (padrão 5)
+                  --publish-rate R          notificações publicadas por segundo (padrão 1, 0 desliga)
+                  --reset-metrics BOOL      zera as métricas do servidor antes da medição (padrão true)
+                  --report-dir DIR          diretório dos relatórios JSON e HTML (padrão target/loadgen)
+                """;
+    }
+
+    /**
+     * Opções efetivas, registradas no relatório
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("baseUrl", baseUrl);
+        map.put("shortPollingClients", shortPollingClients);
+        map.put("longPollingClients", longPollingClients);
+        map.put("websocketClients", websocketClients);
+        map.put("shortPollingIntervalMs", shortPollingIntervalMs);
+        map.put("durationSeconds", durationSeconds);
+        map.put("rampUpSeconds", rampUpSeconds);
+        map.put("publishRate", publishRate);
+        return map;
+    }
+}
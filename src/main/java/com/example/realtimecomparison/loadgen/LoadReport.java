@@ -0,0 +1,48 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.example.realtimecomparison.service.LatencyHistogram;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relatório de uma execução do gerador de carga
+ */
+@lombok.Value
+public class LoadReport {
+    String startedAt;
+    long measuredMillis;
+    long notificationsPublished;
+    Map<String, Object> options;
+    List<TechniqueReport> techniques;
+    ServerReport server;
+
+    /**
+     * Resultado de uma técnica. Bytes recebidos incluem corpo e cabeçalhos HTTP (ou frames STOMP),
+     * sem o overhead de TCP/TLS.
+     */
+    @lombok.Value
+    public static class TechniqueReport {
+        String technique;
+        int clients;
+        long requests;
+        long notificationsDelivered;
+        double requestsPerNotification;
+        long bytesReceived;
+        double bytesPerNotification;
+        long errors;
+        LatencyHistogram.Snapshot latencyMs;
+    }
+
+    /**
+     * Uso de recursos do servidor amostrado em /api/metrics/runtime durante a medição
+     */
+    @lombok.Value
+    public static class ServerReport {
+        int samples;
+        double averageCpuLoad;
+        double maxCpuLoad;
+        long maxHeapUsedBytes;
+        int maxThreadCount;
+    }
+}
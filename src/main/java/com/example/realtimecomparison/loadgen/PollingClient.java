@@ -0,0 +1,121 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cliente HTTP simulado de short polling (intervalo fixo, If-None-Match) ou long polling (intervalo zero).
+ * Retoma sempre a partir do cursor recebido em X-Next-Cursor; executado em uma thread virtual.
+ */
+final class PollingClient implements Runnable {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Linha de status HTTP/1.1 mais CRLF final, não expostos pelo HttpClient
+    private static final int STATUS_LINE_BYTES = 17;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ClientStats stats;
+    private final String endpoint;
+    private final String clientId;
+    private final long intervalMs;
+    private final Duration timeout;
+    private final BooleanSupplier running;
+
+    private long cursor = -1;
+    private String etag;
+
+    PollingClient(HttpClient httpClient, ObjectMapper objectMapper, ClientStats stats, String endpoint,
+                  String clientId, long intervalMs, Duration timeout, BooleanSupplier running) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+        this.endpoint = endpoint;
+        this.clientId = clientId;
+        this.intervalMs = intervalMs;
+        this.timeout = timeout;
+        this.running = running;
+    }
+
+    @Override
+    public void run() {
+        while (running.getAsBoolean()) {
+            try {
+                poll();
+                if (intervalMs > 0) {
+                    Thread.sleep(intervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                stats.recordError();
+                if (!pause()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void poll() throws Exception {
+        String uri = endpoint + "?clientId=" + clientId + (cursor >= 0 ? "&after=" + cursor : "");
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri)).timeout(timeout).GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        long receivedAt = System.currentTimeMillis();
+        stats.recordRequest(responseBytes(response));
+
+        if (response.statusCode() == 304) {
+            return;
+        }
+        if (response.statusCode() != 200) {
+            stats.recordError();
+            return;
+        }
+
+        for (JsonNode notification : objectMapper.readTree(response.body())) {
+            stats.recordNotification(notification, receivedAt);
+        }
+        response.headers().firstValue(NEXT_CURSOR_HEADER).ifPresent(value -> cursor = Long.parseLong(value));
+        etag = response.headers().firstValue("ETag").orElse(null);
+    }
+
+    /**
+     * Espera antes de tentar de novo após um erro; false se a thread foi interrompida
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(1000);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Tamanho aproximado da resposta: linha de status, cabeçalhos e corpo
+     */
+    private static long responseBytes(HttpResponse<byte[]> response) {
+        long bytes = STATUS_LINE_BYTES + response.body().length;
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            for (String value : header.getValue()) {
+                bytes += header.getKey().length() + value.length() + 4;
+            }
+        }
+        return bytes;
+    }
+}
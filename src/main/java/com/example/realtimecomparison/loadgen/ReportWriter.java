@@ -0,0 +1,107 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Grava o relatório do gerador de carga em report.json e report.html
+ */
+final class ReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportWriter.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build();
+
+    ReportWriter(Path directory) {
+        this.directory = directory;
+    }
+
+    void write(LoadReport report) throws IOException {
+        Files.createDirectories(directory);
+        Path json = directory.resolve("report.json");
+        Path html = directory.resolve("report.html");
+        objectMapper.writeValue(json.toFile(), report);
+        Files.writeString(html, toHtml(report), StandardCharsets.UTF_8);
+        logger.info("Relatórios gravados em {} e {}", json, html);
+    }
+
+    private String toHtml(LoadReport report) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"pt-BR\">\n<head>\n<meta charset=\"UTF-8\">\n")
+            .append("<title>Relatório de carga</title>\n")
+            .append("<style>body{font-family:sans-serif;margin:2rem}table{border-collapse:collapse;margin-bottom:2rem}")
+            .append("th,td{border:1px solid #ccc;padding:.4rem .8rem;text-align:right}th:first-child,td:first-child{text-align:left}</style>\n")
+            .append("</head>\n<body>\n<h1>Relatório de carga</h1>\n");
+
+        html.append("<p>Início: ").append(escape(report.getStartedAt()))
+            .append(" &middot; Medição: ").append(report.getMeasuredMillis() / 1000).append("s")
+            .append(" &middot; Notificações publicadas: ").append(report.getNotificationsPublished()).append("</p>\n");
+
+        html.append("<h2>Parâmetros</h2>\n<table>\n");
+        for (Map.Entry<String, Object> option : report.getOptions().entrySet()) {
+            html.append("<tr><td>").append(escape(option.getKey())).append("</td><td>")
+                .append(escape(String.valueOf(option.getValue()))).append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        html.append("<h2>Técnicas</h2>\n<table>\n<tr><th>Técnica</th><th>Clientes</th><th>Requisições</th>")
+            .append("<th>Notificações entregues</th><th>Req/notificação</th><th>Bytes recebidos</th><th>Bytes/notificação</th>")
+            .append("<th>Erros</th><th>p50 (ms)</th><th>p90 (ms)</th><th>p99 (ms)</th><th>p99.9 (ms)</th><th>máx (ms)</th></tr>\n");
+        for (LoadReport.TechniqueReport technique : report.getTechniques()) {
+            html.append("<tr><td>").append(escape(technique.getTechnique())).append("</td>")
+                .append(cell(technique.getClients()))
+                .append(cell(technique.getRequests()))
+                .append(cell(technique.getNotificationsDelivered()))
+                .append(cell(format(technique.getRequestsPerNotification())))
+                .append(cell(technique.getBytesReceived()))
+                .append(cell(format(technique.getBytesPerNotification())))
+                .append(cell(technique.getErrors()))
+                .append(cell(technique.getLatencyMs().getP50()))
+                .append(cell(technique.getLatencyMs().getP90()))
+                .append(cell(technique.getLatencyMs().getP99()))
+                .append(cell(technique.getLatencyMs().getP999()))
+                .append(cell(technique.getLatencyMs().getMax()))
+                .append("</tr>\n");
+        }
+        html.append("</table>\n");
+
+        LoadReport.ServerReport server = report.getServer();
+        html.append("<h2>Servidor</h2>\n<table>\n")
+            .append("<tr><td>Amostras</td>").append(cell(server.getSamples())).append("</tr>\n")
+            .append("<tr><td>CPU média do processo</td>").append(cell(percent(server.getAverageCpuLoad()))).append("</tr>\n")
+            .append("<tr><td>CPU máxima do processo</td>").append(cell(percent(server.getMaxCpuLoad()))).append("</tr>\n")
+            .append("<tr><td>Heap máximo usado (MB)</td>").append(cell(format(server.getMaxHeapUsedBytes() / 1048576.0))).append("</tr>\n")
+            .append("<tr><td>Threads (máx)</td>").append(cell(server.getMaxThreadCount())).append("</tr>\n")
+            .append("</table>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static String cell(Object value) {
+        return "<td>" + escape(String.valueOf(value)) + "</td>";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String percent(double load) {
+        return load < 0 ? "n/d" : String.format(Locale.ROOT, "%.1f%%", load * 100);
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.realtimecomparison.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Cliente STOMP mínimo sobre o WebSocket do JDK, conectado ao transporte WebSocket do endpoint SockJS
+ * (/ws/websocket) e inscrito em /topic/notifications
+ */
+final class StompClient implements WebSocket.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompClient.class);
+
+    private static final String DESTINATION = "/topic/notifications";
+
+    private final ObjectMapper objectMapper;
+    private final ClientStats stats;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private WebSocket webSocket;
+
+    StompClient(ObjectMapper objectMapper, ClientStats stats) {
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+    }
+
+    /**
+     * Abre a conexão e envia CONNECT e SUBSCRIBE; conta como uma única requisição
+     */
+    CompletableFuture<Void> connect(HttpClient httpClient, String baseUrl) {
+        URI uri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws/websocket");
+        String host = URI.create(baseUrl).getHost();
+        return httpClient.newWebSocketBuilder()
+                .buildAsync(uri, this)
+                .thenCompose(ws -> {
+                    webSocket = ws;
+                    stats.recordRequest(0);
+                    return ws.sendText("CONNECT\naccept-version:1.2\nhost:" + host + "\nheart-beat:0,0\n\n\0", true);
+                })
+                .thenCompose(ws -> ws.sendText("SUBSCRIBE\nid:sub-0\ndestination:" + DESTINATION + "\n\n\0", true))
+                .thenAccept(ws -> { })
+                .exceptionally(e -> {
+                    stats.recordError();
+                    logger.debug("Falha ao conectar cliente STOMP", e);
+                    return null;
+                });
+    }
+
+    void close() {
+        if (webSocket != null && !webSocket.isOutputClosed()) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "fim da medição");
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        buffer.append(data);
+        if (last) {
+            String frames = buffer.toString();
+            buffer.setLength(0);
+            stats.recordBytes(frames.getBytes(StandardCharsets.UTF_8).length);
+            onFrames(frames, System.currentTimeMillis());
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        return onText(webSocket, StandardCharsets.UTF_8.decode(data), last);
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        stats.recordError();
+        logger.debug("Erro no cliente STOMP", error);
+    }
+
+    /**
+     * Processa um ou mais frames STOMP terminados em NUL; heart-beats (linhas vazias) são ignorados
+     */
+    private void onFrames(String frames, long receivedAt) {
+        for (String frame : frames.split("\0")) {
+            String trimmed = frame.stripLeading();
+            if (!trimmed.startsWith("MESSAGE")) {
+                if (trimmed.startsWith("ERROR")) {
+                    stats.recordError();
+                }
+                continue;
+            }
+            int bodyStart = trimmed.indexOf("\n\n");
+            if (bodyStart < 0) {
+                continue;
+            }
+            try {
+                stats.recordNotification(objectMapper.readTree(trimmed.substring(bodyStart + 2)), receivedAt);
+            } catch (Exception e) {
+                stats.recordError();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.realtimecomparison.repository;
+
+import com.example.realtimecomparison.entity.ClientCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClientCursorRepository extends JpaRepository<ClientCursor, String> {
+}
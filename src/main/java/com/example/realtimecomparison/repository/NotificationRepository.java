@@ -1,28 +1,33 @@
 package com.example.realtimecomparison.repository;
 
 import com.example.realtimecomparison.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
     /**
-     * Busca notificações criadas após um timestamp específico
+     * Busca uma página de notificações criadas após um timestamp específico, em ordem de id
+     * (a página termina num id que serve de cursor para a seguinte)
      */
-    @Query("SELECT n FROM Notification n WHERE n.createdAt > :since ORDER BY n.createdAt DESC")
-    List<Notification> findNotificationsAfter(@Param("since") Instant since);
+    @Query("SELECT n FROM Notification n WHERE n.createdAt > :since ORDER BY n.id ASC")
+    List<Notification> findNotificationsAfter(@Param("since") Instant since, Pageable page);
     
     /**
-     * Busca notificações não entregues
+     * Busca uma página de notificações com id maior que o cursor (range no índice da chave primária)
      */
-    @Query("SELECT n FROM Notification n WHERE n.delivered = false ORDER BY n.createdAt ASC")
-    List<Notification> findUndeliveredNotifications();
+    @Query("SELECT n FROM Notification n WHERE n.id > :after ORDER BY n.id ASC")
+    List<Notification> findNotificationsAfterId(@Param("after") long after, Pageable page);
     
     /**
      * Conta notificações criadas após um timestamp específico
@@ -31,8 +36,64 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     long countNotificationsAfter(@Param("since") Instant since);
     
     /**
-     * Busca as últimas N notificações
+     * Conta notificações dos tópicos informados criadas após um timestamp específico
      */
-    @Query("SELECT n FROM Notification n ORDER BY n.createdAt DESC")
-    List<Notification> findLatestNotifications();
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.createdAt > :since AND n.topic IN :topics")
+    long countNotificationsAfterInTopics(@Param("since") Instant since, @Param("topics") Collection<String> topics);
+    
+    /**
+     * Conta notificações com id maior que o cursor sem carregar as entidades
+     */
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.id > :after")
+    long countByIdGreaterThan(@Param("after") long after);
+    
+    /**
+     * Conta notificações dos tópicos informados com id maior que o cursor
+     */
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.id > :after AND n.topic IN :topics")
+    long countByIdGreaterThanAndTopicIn(@Param("after") long after, @Param("topics") Collection<String> topics);
+    
+    /**
+     * Busca as notificações mais recentes; o banco lê apenas a página pedida (LIMIT na consulta)
+     */
+    @Query("SELECT n FROM Notification n ORDER BY n.id DESC")
+    List<Notification> findLatestNotifications(Pageable page);
+    
+    /**
+     * Página anterior ao cursor (keyset): notificações com id menor que before, da mais recente para a mais antiga
+     */
+    @Query("SELECT n FROM Notification n WHERE n.id < :before ORDER BY n.id DESC")
+    List<Notification> findNotificationsBefore(@Param("before") long before, Pageable page);
+    
+    /**
+     * Menor id ainda armazenado (início da próxima faixa a apagar pela retenção)
+     */
+    @Query("SELECT MIN(n.id) FROM Notification n")
+    Long findMinId();
+    
+    /**
+     * Maior id armazenado
+     */
+    @Query("SELECT MAX(n.id) FROM Notification n")
+    Long findMaxId();
+    
+    /**
+     * Menor id criado no instante informado ou depois (a retenção por idade apaga só os ids abaixo dele)
+     */
+    @Query("SELECT MIN(n.id) FROM Notification n WHERE n.createdAt >= :cutoff")
+    Long findMinIdCreatedAtOrAfter(@Param("cutoff") Instant cutoff);
+    
+    /**
+     * Ids da notificação mais recente para a mais antiga; com offset N, o primeiro id além das N mais recentes
+     */
+    @Query("SELECT n.id FROM Notification n ORDER BY n.id DESC")
+    List<Long> findIdsNewestFirst(Pageable page);
+    
+    /**
+     * Apaga uma faixa de ids em uma transação curta
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Notification n WHERE n.id >= :from AND n.id <= :to")
+    int deleteIdRange(@Param("from") long from, @Param("to") long to);
 }
@@ -0,0 +1,167 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.example.realtimecomparison.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot do dashboard mantido em memória. A publicação e a retenção atualizam incrementalmente
+ * o total de notificações e as últimas notificações; o resumo das métricas e o atraso dos clientes
+ * são recalculados no máximo uma vez por intervalo, e só quando algo mudou. As requisições do
+ * dashboard apenas leem o snapshot pronto: o custo não depende do tamanho da tabela nem do número
+ * de abas abertas.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    /**
+     * Quantidade de notificações recentes exibidas no dashboard
+     */
+    public static final int LATEST_SIZE = 10;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private NotificationLog notificationLog;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private final AtomicLong totalNotifications = new AtomicLong();
+
+    // Mais recente primeiro; protegido por si mesmo
+    private final Deque<LatestNotification> latest = new ArrayDeque<>(LATEST_SIZE + 1);
+
+    // Muda a cada publicação ou retenção
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile DashboardSnapshot snapshot;
+
+    // Versões usadas na última reconstrução (protegidas pelo monitor do serviço)
+    private long builtVersion = -1;
+    private long builtMetricsVersion = -1;
+
+    @PostConstruct
+    public void init() {
+        // Única consulta ao banco: o total inicial, antes de qualquer publicação
+        totalNotifications.set(notificationRepository.count());
+        for (Notification notification : notificationRepository.findLatestNotifications(PageRequest.of(0, LATEST_SIZE))) {
+            latest.addLast(LatestNotification.of(notification));
+        }
+        rebuild();
+    }
+
+    /**
+     * Registra um lote recém-publicado (em ordem de id)
+     */
+    public void onPublished(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        totalNotifications.addAndGet(notifications.size());
+        synchronized (latest) {
+            int from = Math.max(0, notifications.size() - LATEST_SIZE);
+            for (Notification notification : notifications.subList(from, notifications.size())) {
+                latest.addFirst(LatestNotification.of(notification));
+            }
+            while (latest.size() > LATEST_SIZE) {
+                latest.removeLast();
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Registra as linhas apagadas pela retenção
+     */
+    public void onPurged(long rows) {
+        if (rows > 0) {
+            totalNotifications.addAndGet(-rows);
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Snapshot atual, sem acesso ao banco
+     */
+    public DashboardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Reconstrói o snapshot se houve publicação, retenção, alteração de métricas ou de atraso
+     */
+    @Scheduled(fixedDelayString = "${realtime.dashboard.refresh-interval-ms:500}")
+    public synchronized void refresh() {
+        long currentVersion = version.get();
+        long metricsVersion = metricsService.getVersion();
+        long pending = subscriptionRegistry.getMaxLag(notificationLog.getLastSequence());
+        if (currentVersion == builtVersion && metricsVersion == builtMetricsVersion
+                && pending == snapshot.getPendingNotifications()) {
+            return;
+        }
+        rebuild();
+    }
+
+    private synchronized void rebuild() {
+        builtVersion = version.get();
+        builtMetricsVersion = metricsService.getVersion();
+        List<LatestNotification> latestNotifications;
+        synchronized (latest) {
+            latestNotifications = List.copyOf(latest);
+        }
+        snapshot = new DashboardSnapshot(
+            metricsService.getSummary(),
+            latestNotifications,
+            totalNotifications.get(),
+            subscriptionRegistry.getMaxLag(notificationLog.getLastSequence()),
+            System.currentTimeMillis()
+        );
+        logger.trace("Snapshot do dashboard reconstruído (versão {})", builtVersion);
+    }
+
+    /**
+     * Estado do dashboard em um instante
+     */
+    @lombok.Value
+    public static class DashboardSnapshot {
+        MetricsService.MetricsSummary metrics;
+        List<LatestNotification> latestNotifications;
+        long totalNotifications;
+        long pendingNotifications;
+        long timestamp;
+    }
+
+    /**
+     * Notificação exibida no dashboard
+     */
+    @lombok.Value
+    public static class LatestNotification {
+        Long id;
+        String message;
+        String topic;
+        String createdAt;
+
+        static LatestNotification of(Notification notification) {
+            return new LatestNotification(notification.getId(), notification.getMessage(),
+                    notification.getTopic(), notification.getCreatedAt().toString());
+        }
+    }
+}
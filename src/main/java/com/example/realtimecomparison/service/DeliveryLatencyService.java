@@ -0,0 +1,167 @@
+package com.example.realtimecomparison.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latência de entrega fim a fim (publicação no servidor -> recebimento no cliente), igual para
+ * todas as técnicas. Os clientes confirmam em lote as notificações recebidas, informando quanto
+ * tempo cada uma esperou no cliente até a confirmação (heldMs), o RTT e o offset de relógio
+ * estimados pela sincronização em /api/delivery/clock.
+ *
+ * Enquanto a notificação está no log em memória a latência é medida só com relógios monotônicos:
+ * chegada da confirmação - publicação (System.nanoTime) - heldMs - RTT/2. Depois que ela sai do log,
+ * usa-se o recebimento informado pelo cliente corrigido pelo offset, menos o publishedAt.
+ */
+@Service
+public class DeliveryLatencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryLatencyService.class);
+
+    /**
+     * Técnicas aceitas nas confirmações (limita a cardinalidade das métricas)
+     */
+    public static final Set<String> TECHNIQUES = Set.of("short", "long", "websocket", "websocket-raw", "sse");
+
+    /**
+     * Maior lote de confirmações aceito numa mensagem
+     */
+    public static final int MAX_RECEIPTS = 1000;
+
+    @Autowired
+    private NotificationLog notificationLog;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private TransportMeters transportMeters;
+
+    private final LongAdder acks = new LongAdder();
+    private final LongAdder monotonic = new LongAdder();
+    private final LongAdder offsetCorrected = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Amostra de relógio para o cliente estimar RTT e offset (NTP simplificado): o cliente guarda a
+     * amostra de menor RTT e calcula offset = serverTime - (instante de recebimento - RTT/2)
+     */
+    public ClockSample clock(long clientTime) {
+        return new ClockSample(clientTime, System.currentTimeMillis());
+    }
+
+    /**
+     * Registra um lote de confirmações; arrivalNanos é o System.nanoTime da chegada da mensagem.
+     * Retorna quantas latências foram registradas.
+     */
+    public int acknowledge(DeliveryAck ack, long arrivalNanos) {
+        if (ack.getTechnique() == null || !TECHNIQUES.contains(ack.getTechnique())) {
+            throw new IllegalArgumentException("Técnica inválida: " + ack.getTechnique());
+        }
+        List<Receipt> receipts = ack.getReceipts();
+        if (receipts == null || receipts.isEmpty()) {
+            return 0;
+        }
+        if (receipts.size() > MAX_RECEIPTS) {
+            throw new IllegalArgumentException("No máximo " + MAX_RECEIPTS + " confirmações por lote");
+        }
+        acks.increment();
+
+        int recorded = 0;
+        for (Receipt receipt : receipts) {
+            long latencyNanos = latencyNanos(ack, receipt, arrivalNanos);
+            if (latencyNanos < 0) {
+                discarded.increment();
+                continue;
+            }
+            metricsService.recordDelivery(ack.getTechnique(), TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            transportMeters.recordDelivery(ack.getTechnique(), latencyNanos);
+            recorded++;
+        }
+        logger.trace("{} confirmações de {} registradas", recorded, ack.getTechnique());
+        return recorded;
+    }
+
+    /**
+     * Latência de uma confirmação, ou -1 se não houver como calculá-la
+     */
+    private long latencyNanos(DeliveryAck ack, Receipt receipt, long arrivalNanos) {
+        long publishedNanos = notificationLog.publishedNanos(receipt.getId());
+        if (publishedNanos >= 0 && ack.getRttMs() >= 0) {
+            double clientSideMs = Math.max(0, receipt.getHeldMs()) + ack.getRttMs() / 2;
+            long latency = arrivalNanos - publishedNanos - (long) (clientSideMs * 1_000_000);
+            if (latency < 0) {
+                // RTT ou heldMs inconsistentes: conta como descartada em vez de registrar latência zero
+                return -1;
+            }
+            monotonic.increment();
+            return latency;
+        }
+        if (receipt.getPublishedAt() != null && receipt.getReceivedAt() > 0) {
+            double receivedServerMs = receipt.getReceivedAt() + ack.getClockOffsetMs();
+            long latencyMs = Math.round(receivedServerMs) - receipt.getPublishedAt().toEpochMilli();
+            offsetCorrected.increment();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, latencyMs));
+        }
+        return -1;
+    }
+
+    /**
+     * Contadores das confirmações recebidas desde a inicialização
+     */
+    public DeliveryStats getStats() {
+        return new DeliveryStats(acks.sum(), monotonic.sum(), offsetCorrected.sum(), discarded.sum());
+    }
+
+    /**
+     * Lote de confirmações de um cliente. rttMs < 0 indica que o cliente ainda não sincronizou
+     * o relógio; clockOffsetMs é o relógio do servidor menos o do cliente.
+     */
+    @lombok.Data
+    public static class DeliveryAck {
+        private String technique;
+        private double rttMs = -1;
+        private double clockOffsetMs;
+        private List<Receipt> receipts;
+    }
+
+    /**
+     * Confirmação de uma notificação: receivedAt no relógio do cliente (epoch ms), heldMs medido
+     * com relógio monotônico do cliente entre o recebimento e o envio da confirmação
+     */
+    @lombok.Data
+    public static class Receipt {
+        private long id;
+        private Instant publishedAt;
+        private long receivedAt;
+        private double heldMs;
+    }
+
+    /**
+     * Resposta da sincronização de relógio
+     */
+    @lombok.Value
+    public static class ClockSample {
+        long clientTime;
+        long serverTime;
+    }
+
+    /**
+     * Confirmações medidas pelo log em memória (monotonic) ou pelo offset de relógio
+     */
+    @lombok.Value
+    public static class DeliveryStats {
+        long acks;
+        long monotonic;
+        long offsetCorrected;
+        long discarded;
+    }
+}
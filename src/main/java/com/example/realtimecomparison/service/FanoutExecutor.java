@@ -0,0 +1,87 @@
+package com.example.realtimecomparison.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Executa o fan-out de uma notificação para todos os clientes de um transporte.
+ * No modo de threads virtuais (spring.threads.virtual.enabled) os clientes são divididos em blocos
+ * processados em paralelo, cada um em uma thread virtual; caso contrário o envio é feito na própria
+ * thread chamadora. Em ambos os modos o método só retorna quando todos os envios terminaram,
+ * preservando a ordem entre notificações consecutivas.
+ */
+@Component
+public class FanoutExecutor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanoutExecutor.class);
+
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    public FanoutExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          @Value("${realtime.fanout.chunk-size:256}") int chunkSize) {
+        this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.chunkSize = Math.max(chunkSize, 1);
+        logger.info("Fan-out configurado com {}", virtualThreads ? "threads virtuais (blocos de " + this.chunkSize + ")" : "a thread chamadora");
+    }
+
+    /**
+     * Aplica a ação a cada cliente e aguarda a conclusão de todos
+     */
+    public <T> void forEach(Collection<T> clients, Consumer<T> action) {
+        if (executor == null || clients.size() <= chunkSize) {
+            clients.forEach(action);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        for (T client : clients) {
+            chunk.add(client);
+            if (chunk.size() == chunkSize) {
+                futures.add(submit(chunk, action));
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            futures.add(submit(chunk, action));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Erro no fan-out em thread virtual", e);
+            }
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return executor != null;
+    }
+
+    private <T> Future<?> submit(List<T> chunk, Consumer<T> action) {
+        return executor.submit(() -> chunk.forEach(action));
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.realtimecomparison.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latência com buckets logarítmicos de memória fixa.
+ * Cada potência de 2 é dividida em 8 sub-buckets lineares (erro relativo de até 12,5%).
+ * O registro não aloca objetos e pode ser chamado concorrentemente; histogramas podem ser somados.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (Long.SIZE - 1 - SUB_BUCKET_BITS + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra um valor (valores negativos são tratados como 0)
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(v));
+
+        long currentMax = max.get();
+        while (v > currentMax && !max.compareAndSet(currentMax, v)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Soma as contagens de outro histograma neste
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        long otherMax = other.max.get();
+        long currentMax = max.get();
+        while (otherMax > currentMax && !max.compareAndSet(currentMax, otherMax)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Zera todas as contagens
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    /**
+     * Gera um snapshot consistente com percentis e buckets não vazios
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (copy[i] != 0) {
+                buckets.add(new Bucket(lowerBound(i), upperBound(i), copy[i]));
+            }
+        }
+
+        // O limite superior do bucket nunca deve ultrapassar o maior valor observado
+        long currentMax = max.get();
+        return new Snapshot(
+                total,
+                Math.min(percentile(copy, total, 50.0), currentMax),
+                Math.min(percentile(copy, total, 90.0), currentMax),
+                Math.min(percentile(copy, total, 99.0), currentMax),
+                Math.min(percentile(copy, total, 99.9), currentMax),
+                currentMax,
+                buckets
+        );
+    }
+
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT * (shift + 1) + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    /**
+     * Maior valor equivalente do bucket (inclusivo)
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return lowerBound(index) + (1L << shift) - 1;
+    }
+
+    /**
+     * Snapshot de percentis e buckets
+     */
+    @lombok.Value
+    public static class Snapshot {
+        long count;
+        long p50;
+        long p90;
+        long p99;
+        long p999;
+        long max;
+        List<Bucket> buckets;
+
+        public static Snapshot empty() {
+            return new Snapshot(0, 0, 0, 0, 0, 0, List.of());
+        }
+    }
+
+    /**
+     * Bucket não vazio do histograma (limites inclusivos)
+     */
+    @lombok.Value
+    public static class Bucket {
+        long lowerBound;
+        long upperBound;
+        long count;
+    }
+}
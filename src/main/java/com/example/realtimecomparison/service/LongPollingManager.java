@@ -3,75 +3,143 @@ package com.example.realtimecomparison.service;
 import com.example.realtimecomparison.entity.Notification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.async.DeferredResult;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class LongPollingManager {
     
     private static final Logger logger = LoggerFactory.getLogger(LongPollingManager.class);
-    private final Map<String, DeferredResult<List<Notification>>> waitingClients = new ConcurrentHashMap<>();
+    private final Map<String, WaitingClient> waitingClients = new ConcurrentHashMap<>();
+    
+    // Índice tópico → clientes: cada publicação só percorre os clientes interessados
+    private final TopicIndex<WaitingClient> topicIndex = new TopicIndex<>();
+    
+    // Janela de coalescência: após a primeira notificação, aguarda até windowMs ou maxBatch notificações
+    private final long coalesceWindowMs;
+    private final int coalesceMaxBatch;
+    private final ScheduledExecutorService coalescer;
+    // coalesceLock protege o lote pendente e é mantido só para acumular ou trocar a lista;
+    // deliverLock mantém a ordem entre lotes durante a entrega, sem bloquear quem só acumula
+    private final ReentrantLock coalesceLock = new ReentrantLock();
+    private final ReentrantLock deliverLock = new ReentrantLock();
+    private List<Notification> pending = new ArrayList<>();
+    private long pendingGeneration;
+    
+    // Tamanho dos lotes entregues aos clientes em espera
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+    
+    @Autowired
+    private NotificationLog notificationLog;
+    
+    @Autowired
+    private FanoutExecutor fanoutExecutor;
+    
+    @Autowired
+    private TransportMeters transportMeters;
+    
+    public LongPollingManager(@Value("${realtime.long-polling.coalesce.window-ms:0}") long coalesceWindowMs,
+                              @Value("${realtime.long-polling.coalesce.max-batch:100}") int coalesceMaxBatch) {
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.coalesceMaxBatch = Math.max(coalesceMaxBatch, 1);
+        this.coalescer = coalesceWindowMs > 0
+                ? Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("long-polling-coalescer").daemon().factory())
+                : null;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (coalescer != null) {
+            coalescer.shutdownNow();
+        }
+    }
     
     /**
-     * Adiciona um cliente para long polling
+     * Adiciona um cliente para long polling. O gerenciador completa diretamente a resposta HTTP
+     * e registra a latência uma única vez, seja na entrega ou no timeout.
+     * Com trackCursor, a entrega avança o cursor do cliente no registro de assinaturas.
+     * O cliente só é acordado por notificações dos tópicos assinados (nulo = todos); o cursor deve
+     * cobrir tudo o que já foi examinado, pois é ele que um timeout devolve e confirma.
      */
-    public void addClient(String clientId, DeferredResult<List<Notification>> result) {
-        waitingClients.put(clientId, result);
+    public void addClient(String clientId, boolean trackCursor, long cursor, Set<String> topics, long startTime,
+                          DeferredResult<ResponseEntity<byte[]>> result) {
+        WaitingClient client = new WaitingClient(clientId, trackCursor, cursor, topics, startTime, result);
+        WaitingClient previous = waitingClients.put(clientId, client);
+        topicIndex.add(client, topics);
+        if (previous != null) {
+            // Mesmo clientId com requisição anterior pendente: encerra a antiga
+            complete(previous, List.of(), null);
+        }
         logger.debug("Cliente {} adicionado para long polling. Total de clientes: {}", 
                     clientId, waitingClients.size());
         
-        // Configurar timeout
         result.onTimeout(() -> {
             logger.debug("Timeout para cliente {}", clientId);
-            waitingClients.remove(clientId);
-            result.setResult(List.of()); // Retorna lista vazia em caso de timeout
+            complete(client, List.of(), null); // Retorna lista vazia em caso de timeout
         });
         
-        result.onCompletion(() -> {
-            logger.debug("Cliente {} completou long polling", clientId);
-            waitingClients.remove(clientId);
-        });
-        
-        result.onError(throwable -> {
-            logger.error("Erro no long polling para cliente {}", clientId, throwable);
-            waitingClients.remove(clientId);
-        });
+        result.onCompletion(() -> unregister(client));
     }
     
     /**
-     * Notifica todos os clientes em espera com uma nova notificação
+     * Entrega notificações recém-publicadas aos clientes em espera, acumulando-as na janela de
+     * coalescência quando configurada. Sem clientes em espera nada é acumulado: quem chegar depois lê do log.
      */
-    public void notifyClients(Notification notification) {
-        if (waitingClients.isEmpty()) {
-            logger.debug("Nenhum cliente em espera para notificar");
+    public void submit(List<Notification> notifications) {
+        if (notifications.isEmpty() || waitingClients.isEmpty()) {
+            return;
+        }
+        if (coalescer == null) {
+            batchSizes.record(notifications.size());
+            notifyClients(notifications);
             return;
         }
         
-        List<Notification> notifications = List.of(notification);
-        int notifiedCount = 0;
-        
-        for (Map.Entry<String, DeferredResult<List<Notification>>> entry : waitingClients.entrySet()) {
-            String clientId = entry.getKey();
-            DeferredResult<List<Notification>> result = entry.getValue();
-            
-            try {
-                if (!result.isSetOrExpired()) {
-                    result.setResult(notifications);
-                    notifiedCount++;
-                    logger.debug("Cliente {} notificado com nova notificação", clientId);
-                } else {
-                    logger.debug("Cliente {} já expirou ou foi completado", clientId);
-                }
-            } catch (Exception e) {
-                logger.error("Erro ao notificar cliente {}", clientId, e);
+        boolean full;
+        coalesceLock.lock();
+        try {
+            boolean first = pending.isEmpty();
+            pending.addAll(notifications);
+            full = pending.size() >= coalesceMaxBatch;
+            if (!full && first) {
+                long generation = pendingGeneration;
+                coalescer.schedule(() -> flushPending(generation), coalesceWindowMs, TimeUnit.MILLISECONDS);
             }
+        } finally {
+            coalesceLock.unlock();
         }
-        
-        logger.info("Notificados {} clientes de long polling", notifiedCount);
+        if (full) {
+            flushPending(-1);
+        }
+    }
+    
+    /**
+     * Notifica todos os clientes em espera com uma nova notificação
+     */
+    public void notifyClients(Notification notification) {
+        notifyClients(List.of(notification));
     }
     
     /**
@@ -83,35 +151,61 @@ public class LongPollingManager {
             return;
         }
         
-        int notifiedCount = 0;
+        // JSON do lote montado uma única vez e compartilhado por todos os clientes sem lacunas
+        byte[] payload = notificationLog.toJsonArray(notifications);
+        LongAdder notifiedCount = new LongAdder();
         
-        for (Map.Entry<String, DeferredResult<List<Notification>>> entry : waitingClients.entrySet()) {
-            String clientId = entry.getKey();
-            DeferredResult<List<Notification>> result = entry.getValue();
-            
+        fanoutExecutor.forEach(topicIndex.match(notifications), client -> {
             try {
-                if (!result.isSetOrExpired()) {
-                    result.setResult(notifications);
-                    notifiedCount++;
-                    logger.debug("Cliente {} notificado com {} notificações", clientId, notifications.size());
-                } else {
-                    logger.debug("Cliente {} já expirou ou foi completado", clientId);
+                if (complete(client, notifications, payload)) {
+                    notifiedCount.increment();
                 }
             } catch (Exception e) {
-                logger.error("Erro ao notificar cliente {}", clientId, e);
+                logger.error("Erro ao notificar cliente {}", client.clientId, e);
             }
-        }
+        });
         
         logger.info("Notificados {} clientes de long polling com {} notificações", 
-                   notifiedCount, notifications.size());
+                   notifiedCount.sum(), notifications.size());
+    }
+    
+    /**
+     * Entrega notificações a um cliente específico, se ele ainda estiver aguardando
+     */
+    public boolean notifyClient(String clientId, List<Notification> notifications) {
+        WaitingClient client = waitingClients.get(clientId);
+        return client != null && complete(client, notifications, null);
+    }
+    
+    /**
+     * Distribuição do tamanho dos lotes entregues aos clientes em espera
+     */
+    public LatencyHistogram.Snapshot getBatchSizes() {
+        return batchSizes.snapshot();
+    }
+    
+    public long getCoalesceWindowMs() {
+        return coalesceWindowMs;
+    }
+    
+    public int getCoalesceMaxBatch() {
+        return coalesceMaxBatch;
+    }
+    
+    /**
+     * Clientes em espera por tópico ("*" = todos os tópicos)
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        return topicIndex.getSubscriberCounts();
     }
     
     /**
      * Remove um cliente específico
      */
     public void removeClient(String clientId) {
-        DeferredResult<List<Notification>> result = waitingClients.remove(clientId);
-        if (result != null) {
+        WaitingClient client = waitingClients.get(clientId);
+        if (client != null) {
+            unregister(client);
             logger.debug("Cliente {} removido do long polling", clientId);
         }
     }
@@ -128,7 +222,7 @@ public class LongPollingManager {
      */
     public void clearAllClients() {
         int count = waitingClients.size();
-        waitingClients.clear();
+        waitingClients.values().forEach(this::unregister);
         logger.info("Removidos {} clientes de long polling", count);
     }
     
@@ -136,21 +230,124 @@ public class LongPollingManager {
      * Força timeout em todos os clientes
      */
     public void forceTimeoutAllClients() {
-        for (Map.Entry<String, DeferredResult<List<Notification>>> entry : waitingClients.entrySet()) {
-            String clientId = entry.getKey();
-            DeferredResult<List<Notification>> result = entry.getValue();
-            
+        for (WaitingClient client : waitingClients.values()) {
             try {
-                if (!result.isSetOrExpired()) {
-                    result.setResult(List.of());
-                    logger.debug("Timeout forçado para cliente {}", clientId);
+                if (complete(client, List.of(), null)) {
+                    logger.debug("Timeout forçado para cliente {}", client.clientId);
                 }
             } catch (Exception e) {
-                logger.error("Erro ao forçar timeout para cliente {}", clientId, e);
+                logger.error("Erro ao forçar timeout para cliente {}", client.clientId, e);
             }
         }
         
-        waitingClients.clear();
+        waitingClients.values().forEach(this::unregister);
         logger.info("Timeout forçado para todos os clientes de long polling");
     }
+    
+    /**
+     * Entrega o lote acumulado. Com generation >= 0 (fim da janela iniciada nessa geração) é ignorado
+     * se o lote já saiu por tamanho. A lista é trocada com coalesceLock e entregue depois de liberá-lo;
+     * a troca acontece com deliverLock, então os lotes são entregues na ordem em que foram fechados.
+     */
+    private void flushPending(long generation) {
+        deliverLock.lock();
+        try {
+            List<Notification> batch;
+            coalesceLock.lock();
+            try {
+                if (pending.isEmpty() || (generation >= 0 && generation != pendingGeneration)) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                pendingGeneration++;
+            } finally {
+                coalesceLock.unlock();
+            }
+            try {
+                batchSizes.record(batch.size());
+                notifyClients(batch);
+            } catch (Exception e) {
+                logger.error("Erro ao entregar lote de {} notificações", batch.size(), e);
+            }
+        } finally {
+            deliverLock.unlock();
+        }
+    }
+    
+    /**
+     * Remove o cliente do mapa (se ainda for o registro atual do clientId) e do índice de tópicos
+     */
+    private void unregister(WaitingClient client) {
+        waitingClients.remove(client.clientId, client);
+        topicIndex.remove(client, client.topics);
+    }
+    
+    /**
+     * Completa a resposta HTTP do cliente com as notificações dos seus tópicos posteriores ao cursor.
+     * O cursor avança até a maior sequência vista, incluindo notificações de outros tópicos.
+     * O payload pré-montado do lote é reutilizado quando o cliente recebe o lote inteiro.
+     * Retorna false se não houver nada novo para o cliente ou se a resposta já foi completada.
+     */
+    private boolean complete(WaitingClient client, List<Notification> notifications, byte[] batchPayload) {
+        List<Notification> pending = notifications;
+        if (!notifications.isEmpty()) {
+            pending = new ArrayList<>(notifications.size());
+            for (Notification notification : notifications) {
+                if (notification.getId() > client.cursor && Topics.matches(client.topics, notification)) {
+                    pending.add(notification);
+                }
+            }
+            if (pending.isEmpty()) {
+                return false;
+            }
+        }
+        
+        long nextCursor = NotificationService.nextCursor(client.cursor, notifications);
+        byte[] body = batchPayload != null && pending.size() == notifications.size()
+                ? batchPayload
+                : notificationLog.toJsonArray(pending);
+        ResponseEntity<byte[]> response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(NotificationService.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                .body(body);
+        
+        if (!client.result.setResult(response)) {
+            logger.debug("Cliente {} já expirou ou foi completado", client.clientId);
+            return false;
+        }
+        
+        unregister(client);
+        if (client.trackCursor) {
+            subscriptionRegistry.acknowledge(client.clientId, nextCursor);
+        }
+        long latency = System.currentTimeMillis() - client.startTime;
+        metricsService.recordRequest("long", latency);
+        metricsService.incrementNotificationCount("long", pending.size());
+        transportMeters.recordPollResponse("long", pending.size());
+        logger.debug("Cliente {} notificado com {} notificações em {}ms", client.clientId, pending.size(), latency);
+        return true;
+    }
+    
+    /**
+     * Cliente aguardando notificações: a própria resposta HTTP diferida e o cursor de onde retomar
+     */
+    private static final class WaitingClient {
+        final String clientId;
+        final boolean trackCursor;
+        final long cursor;
+        final Set<String> topics;
+        final long startTime;
+        final DeferredResult<ResponseEntity<byte[]>> result;
+        
+        WaitingClient(String clientId, boolean trackCursor, long cursor, Set<String> topics, long startTime,
+                      DeferredResult<ResponseEntity<byte[]>> result) {
+            this.clientId = clientId;
+            this.trackCursor = trackCursor;
+            this.cursor = cursor;
+            this.topics = topics;
+            this.startTime = startTime;
+            this.result = result;
+        }
+    }
 }
@@ -5,10 +5,17 @@ import com.example.realtimecomparison.repository.PerformanceMetricsRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class MetricsService {
@@ -18,47 +25,117 @@ public class MetricsService {
     @Autowired
     private PerformanceMetricsRepository metricsRepository;
     
+    // Contadores em memória por técnica; o caminho quente só toca LongAdders
+    private final Map<String, TechniqueCounters> counters = new ConcurrentHashMap<>();
+    
+    // Conta os resets para que getVersion mude mesmo quando os contadores voltam a somas já vistas
+    private final LongAdder resets = new LongAdder();
+    
     /**
      * Registra uma requisição para uma técnica específica
      */
     public void recordRequest(String technique, long latencyMs) {
-        PerformanceMetrics metrics = getOrCreateMetrics(technique);
-        metrics.incrementRequestCount();
-        metrics.addLatency(latencyMs);
-        metricsRepository.save(metrics);
-        logger.debug("Métrica registrada - Técnica: {}, Requests: {}, Latência: {}ms", 
-                    technique, metrics.getRequestCount(), latencyMs);
+        TechniqueCounters techniqueCounters = countersFor(technique);
+        techniqueCounters.requestCount.increment();
+        techniqueCounters.totalLatency.add(latencyMs);
+        techniqueCounters.latency.record(latencyMs);
+    }
+    
+    /**
+     * Registra a latência de entrega de uma notificação (publicação -> recebimento no cliente)
+     */
+    public void recordDelivery(String technique, long latencyMs) {
+        TechniqueCounters techniqueCounters = countersFor(technique);
+        techniqueCounters.deliveryCount.increment();
+        techniqueCounters.totalDeliveryLatency.add(latencyMs);
+        techniqueCounters.delivery.record(latencyMs);
     }
     
     /**
      * Incrementa contador de notificações para uma técnica
      */
     public void incrementNotificationCount(String technique) {
-        PerformanceMetrics metrics = getOrCreateMetrics(technique);
-        metrics.incrementNotificationCount();
-        metricsRepository.save(metrics);
-        logger.debug("Contador de notificações incrementado - Técnica: {}, Total: {}", 
-                    technique, metrics.getNotificationCount());
+        countersFor(technique).notificationCount.increment();
+    }
+    
+    /**
+     * Incrementa contador de notificações de uma técnica em lote
+     */
+    public void incrementNotificationCount(String technique, long count) {
+        if (count > 0) {
+            countersFor(technique).notificationCount.add(count);
+        }
     }
     
     /**
      * Busca métricas por técnica
      */
     public Optional<PerformanceMetrics> getMetrics(String technique) {
-        return metricsRepository.findByTechnique(technique);
+        return Optional.ofNullable(counters.get(technique)).map(TechniqueCounters::snapshot);
     }
     
     /**
      * Busca todas as métricas
      */
     public List<PerformanceMetrics> getAllMetrics() {
-        return metricsRepository.findAll();
+        List<PerformanceMetrics> snapshots = new ArrayList<>(counters.size());
+        counters.values().forEach(techniqueCounters -> snapshots.add(techniqueCounters.snapshot()));
+        return snapshots;
+    }
+    
+    /**
+     * Obtém o histograma de latência de uma técnica (vazio se não houver registros)
+     */
+    public LatencyHistogram.Snapshot getLatencySnapshot(String technique) {
+        TechniqueCounters techniqueCounters = counters.get(technique);
+        return techniqueCounters != null ? techniqueCounters.latency.snapshot() : LatencyHistogram.Snapshot.empty();
+    }
+    
+    /**
+     * Obtém o histograma de latência de entrega de uma técnica (vazio se não houver confirmações)
+     */
+    public LatencyHistogram.Snapshot getDeliverySnapshot(String technique) {
+        TechniqueCounters techniqueCounters = counters.get(technique);
+        return techniqueCounters != null ? techniqueCounters.delivery.snapshot() : LatencyHistogram.Snapshot.empty();
+    }
+    
+    /**
+     * Versão dos contadores: muda sempre que alguma requisição, notificação ou entrega é registrada ou
+     * as métricas são resetadas. Permite a quem lê o resumo periodicamente pular recomputações.
+     */
+    public long getVersion() {
+        long version = resets.sum();
+        for (TechniqueCounters techniqueCounters : counters.values()) {
+            version += techniqueCounters.version();
+        }
+        return version;
+    }
+    
+    /**
+     * Persiste periodicamente os snapshots das técnicas alteradas desde o último flush
+     * (sincronizado com os resets, para que um flush não regrave linhas recém-resetadas)
+     */
+    @Scheduled(fixedDelayString = "${realtime.metrics.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<PerformanceMetrics> changed = new ArrayList<>();
+        for (TechniqueCounters techniqueCounters : counters.values()) {
+            if (techniqueCounters.markFlushed()) {
+                changed.add(techniqueCounters.snapshot());
+            }
+        }
+        
+        if (!changed.isEmpty()) {
+            metricsRepository.saveAll(changed);
+            logger.debug("Flush de métricas: {} técnicas persistidas", changed.size());
+        }
     }
     
     /**
      * Reseta todas as métricas
      */
-    public void resetAllMetrics() {
+    public synchronized void resetAllMetrics() {
+        counters.clear();
+        resets.increment();
         metricsRepository.deleteAll();
         logger.info("Todas as métricas foram resetadas");
     }
@@ -66,22 +143,22 @@ public class MetricsService {
     /**
      * Reseta métricas de uma técnica específica
      */
-    public void resetMetrics(String technique) {
-        metricsRepository.findByTechnique(technique).ifPresent(metrics -> {
-            metricsRepository.delete(metrics);
+    public synchronized void resetMetrics(String technique) {
+        if (counters.remove(technique) != null) {
+            resets.increment();
             logger.info("Métricas da técnica '{}' foram resetadas", technique);
-        });
+        }
+        metricsRepository.findByTechnique(technique).ifPresent(metricsRepository::delete);
     }
     
     /**
-     * Obtém ou cria métricas para uma técnica
+     * Obtém ou cria os contadores de uma técnica
      */
-    private PerformanceMetrics getOrCreateMetrics(String technique) {
-        return metricsRepository.findByTechnique(technique)
-                .orElseGet(() -> {
-                    PerformanceMetrics newMetrics = new PerformanceMetrics(technique);
-                    return metricsRepository.save(newMetrics);
-                });
+    private TechniqueCounters countersFor(String technique) {
+        TechniqueCounters techniqueCounters = counters.get(technique);
+        return techniqueCounters != null
+                ? techniqueCounters
+                : counters.computeIfAbsent(technique, TechniqueCounters::new);
     }
     
     /**
@@ -98,7 +175,78 @@ public class MetricsService {
                 .average()
                 .orElse(0.0);
         
-        return new MetricsSummary(totalRequests, totalNotifications, averageLatency, allMetrics);
+        Map<String, LatencyHistogram.Snapshot> latencyHistograms = new TreeMap<>();
+        Map<String, LatencyHistogram.Snapshot> deliveryHistograms = new TreeMap<>();
+        allMetrics.forEach(m -> {
+            latencyHistograms.put(m.getTechnique(), getLatencySnapshot(m.getTechnique()));
+            if (m.getDeliveryCount() > 0) {
+                deliveryHistograms.put(m.getTechnique(), getDeliverySnapshot(m.getTechnique()));
+            }
+        });
+        
+        return new MetricsSummary(totalRequests, totalNotifications, averageLatency, allMetrics,
+                latencyHistograms, deliveryHistograms);
+    }
+    
+    /**
+     * Contadores de uma técnica. A data de atualização é derivada fora do caminho quente,
+     * comparando os totais com os da última observação.
+     */
+    private static final class TechniqueCounters {
+        final String technique;
+        final LongAdder requestCount = new LongAdder();
+        final LongAdder totalLatency = new LongAdder();
+        final LongAdder notificationCount = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder deliveryCount = new LongAdder();
+        final LongAdder totalDeliveryLatency = new LongAdder();
+        final LatencyHistogram delivery = new LatencyHistogram();
+        
+        private long observedVersion = 0;
+        private long flushedVersion = 0;
+        private Instant lastUpdate = Instant.now();
+        
+        TechniqueCounters(String technique) {
+            this.technique = technique;
+        }
+        
+        long version() {
+            return requestCount.sum() + notificationCount.sum() + deliveryCount.sum();
+        }
+        
+        synchronized PerformanceMetrics snapshot() {
+            long requests = requestCount.sum();
+            long notifications = notificationCount.sum();
+            long deliveries = deliveryCount.sum();
+            observe(requests + notifications + deliveries);
+            
+            PerformanceMetrics metrics = new PerformanceMetrics(technique);
+            metrics.setRequestCount(requests);
+            metrics.setTotalLatency(totalLatency.sum());
+            metrics.setNotificationCount(notifications);
+            metrics.setDeliveryCount(deliveries);
+            metrics.setTotalDeliveryLatency(totalDeliveryLatency.sum());
+            metrics.setLastUpdate(lastUpdate);
+            return metrics;
+        }
+        
+        /**
+         * Retorna true se houve alteração desde o último flush
+         */
+        synchronized boolean markFlushed() {
+            long version = version();
+            observe(version);
+            boolean changed = version != flushedVersion;
+            flushedVersion = version;
+            return changed;
+        }
+        
+        private void observe(long version) {
+            if (version != observedVersion) {
+                observedVersion = version;
+                lastUpdate = Instant.now();
+            }
+        }
     }
     
     /**
@@ -110,5 +258,8 @@ public class MetricsService {
         long totalNotifications;
         double averageLatency;
         List<PerformanceMetrics> techniqueMetrics;
+        Map<String, LatencyHistogram.Snapshot> latencyHistograms;
+        // Publicação -> recebimento no cliente, apenas técnicas com confirmações
+        Map<String, LatencyHistogram.Snapshot> deliveryHistograms;
     }
 }
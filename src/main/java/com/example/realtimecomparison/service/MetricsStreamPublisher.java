@@ -0,0 +1,106 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.PerformanceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Publica as métricas do dashboard em /topic/metrics. Cada mensagem traz apenas os valores que
+ * mudaram desde a anterior (valores absolutos, não incrementos), e nada é enviado quando nada mudou.
+ * O estado completo é entregue uma vez ao assinar /app/metrics; o número de sequência permite ao
+ * cliente descartar um estado completo mais antigo que um delta já aplicado.
+ */
+@Service
+public class MetricsStreamPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsStreamPublisher.class);
+
+    public static final String METRICS_DESTINATION = "/topic/metrics";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private LongPollingManager longPollingManager;
+
+    // Último estado publicado e sua sequência (escritos apenas pela thread do agendador)
+    private volatile MetricsUpdate current = new MetricsUpdate(0, true, Map.of());
+
+    /**
+     * Compara o estado atual com o último publicado e envia a diferença
+     */
+    @Scheduled(fixedDelayString = "${realtime.dashboard.stream-interval-ms:1000}")
+    public void publishChanges() {
+        Map<String, Object> values = collect();
+        Map<String, Object> previous = current.getValues();
+
+        Map<String, Object> changed = new TreeMap<>();
+        values.forEach((key, value) -> {
+            if (!value.equals(previous.get(key))) {
+                changed.put(key, value);
+            }
+        });
+        // Chaves que sumiram (técnica resetada) voltam a zero
+        previous.keySet().forEach(key -> {
+            if (!values.containsKey(key)) {
+                changed.put(key, 0);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        long seq = current.getSeq() + 1;
+        current = new MetricsUpdate(seq, true, values);
+        messagingTemplate.convertAndSend(METRICS_DESTINATION, new MetricsUpdate(seq, false, changed));
+        logger.trace("Delta de métricas #{} com {} valores", seq, changed.size());
+    }
+
+    /**
+     * Estado completo do último envio, para um novo assinante
+     */
+    public MetricsUpdate getFullState() {
+        return current;
+    }
+
+    /**
+     * Valores acompanhados pelo dashboard, achatados em chaves "técnica.campo"
+     */
+    private Map<String, Object> collect() {
+        DashboardService.DashboardSnapshot snapshot = dashboardService.getSnapshot();
+        Map<String, Object> values = new HashMap<>();
+        for (PerformanceMetrics metrics : snapshot.getMetrics().getTechniqueMetrics()) {
+            String technique = metrics.getTechnique();
+            values.put(technique + ".requests", metrics.getRequestCount());
+            values.put(technique + ".notifications", metrics.getNotificationCount());
+            // Uma casa decimal basta para exibição e evita deltas por variações irrelevantes
+            values.put(technique + ".latency", Math.round(metrics.getAverageLatency() * 10) / 10.0);
+            values.put(technique + ".delivery", Math.round(metrics.getAverageDeliveryLatency() * 10) / 10.0);
+        }
+        values.put("long.waiting", longPollingManager.getWaitingClientsCount());
+        values.put("notifications.total", snapshot.getTotalNotifications());
+        values.put("notifications.pending", snapshot.getPendingNotifications());
+        return values;
+    }
+
+    /**
+     * Mensagem do stream: full = estado completo, senão apenas os valores alterados
+     */
+    @lombok.Value
+    public static class MetricsUpdate {
+        long seq;
+        boolean full;
+        Map<String, Object> values;
+    }
+}
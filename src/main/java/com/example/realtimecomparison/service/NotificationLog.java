@@ -0,0 +1,242 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Buffer circular em memória com as notificações mais recentes, ordenadas pelo id
+ * (sequência monotônica gerada pelo banco). Atende as leituras de polling sem acessar
+ * o banco enquanto o cursor do cliente estiver dentro da janela retida.
+ * Cada notificação é serializada em JSON uma única vez, ao ser anexada, e os bytes são
+ * reutilizados por todos os transportes e destinatários.
+ */
+@Component
+public class NotificationLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationLog.class);
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final Entry[] ring;
+    private final int mask;
+    private final ObjectMapper objectMapper;
+
+    // Primeira sequência anexada desde a inicialização (0 = log vazio)
+    private volatile long firstSequence = 0;
+
+    // Última sequência publicada; escrita após o slot para garantir visibilidade aos leitores.
+    // Como os lotes são anexados em ordem de id, todas as sequências até ela estão no log (ou marcadas como lacuna)
+    private volatile long lastSequence = 0;
+
+    public NotificationLog(@Value("${realtime.notification-log.capacity:4096}") int capacity,
+                           ObjectMapper objectMapper) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ring = new Entry[size];
+        this.mask = size - 1;
+        this.objectMapper = objectMapper;
+        logger.info("Log de notificações em memória criado com capacidade {}", size);
+    }
+
+    /**
+     * Anexa uma notificação já persistida (com id) ao log, serializando-a uma única vez.
+     * Deve ser chamado em ordem de id e após o commit (NotificationService.saveAll garante as duas coisas):
+     * ids pulados entre a última sequência e esta são tratados como lacunas definitivas.
+     */
+    public void append(Notification notification) {
+        byte[] payload = encode(notification);
+        synchronized (this) {
+            store(notification, payload);
+        }
+    }
+
+    private void store(Notification notification, byte[] payload) {
+        long sequence = notification.getId();
+        long last = lastSequence;
+        if (last != 0 && sequence > last + 1) {
+            // Ids consumidos por inserções que falharam: marcados para que a leitura os atravesse
+            for (long gap = Math.max(last + 1, sequence - ring.length + 1); gap < sequence; gap++) {
+                ring[(int) (gap & mask)] = new Entry(gap, null, null, 0);
+            }
+        }
+        ring[(int) (sequence & mask)] = new Entry(sequence, notification, payload, System.nanoTime());
+        if (firstSequence == 0) {
+            firstSequence = sequence;
+        }
+        if (sequence > lastSequence) {
+            lastSequence = sequence;
+        }
+    }
+
+    /**
+     * Busca no log as notificações com sequência maior que o cursor, em ordem crescente.
+     * Retorna vazio quando o cursor é anterior à janela retida e o banco precisa ser consultado.
+     */
+    public Optional<List<Notification>> readAfter(long after) {
+        long last = lastSequence;
+        if (after >= last) {
+            return Optional.of(List.of());
+        }
+
+        long oldest = oldestRetained(last);
+        if (after + 1 < oldest) {
+            return Optional.empty();
+        }
+
+        List<Notification> result = new ArrayList<>((int) (last - after));
+        for (long sequence = after + 1; sequence <= last; sequence++) {
+            Entry entry = entryAt(sequence);
+            if (entry == null || entry.sequence < sequence) {
+                // Ainda não publicada: para aqui, para que o cursor nunca passe por cima dela
+                break;
+            }
+            if (entry.sequence > sequence) {
+                // Slot sobrescrito durante a leitura: a janela passou por nós
+                return Optional.empty();
+            }
+            if (entry.notification != null) {
+                result.add(entry.notification);
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Busca no log as notificações criadas após o timestamp, da mais recente para a mais antiga.
+     * Retorna vazio quando o timestamp é anterior à janela retida e o banco precisa ser consultado.
+     */
+    public Optional<List<Notification>> findAfter(Instant since) {
+        long last = lastSequence;
+        if (last == 0) {
+            return Optional.of(List.of());
+        }
+
+        long oldest = oldestRetained(last);
+        List<Notification> result = new ArrayList<>();
+
+        for (long sequence = last; sequence >= oldest; sequence--) {
+            Entry entry = entryAt(sequence);
+            if (entry == null || entry.sequence != sequence) {
+                // Slot sobrescrito durante a leitura ou sequência ainda não publicada: o banco decide
+                return Optional.empty();
+            }
+            Notification notification = entry.notification;
+            if (notification == null) {
+                // Lacuna definitiva (id não utilizado)
+                continue;
+            }
+            if (!notification.getCreatedAt().isAfter(since)) {
+                return Optional.of(result);
+            }
+            result.add(notification);
+        }
+
+        // Percorremos toda a janela sem alcançar o timestamp: só é completo se a janela cobre o início do log
+        return oldest == firstSequence ? Optional.of(result) : Optional.empty();
+    }
+
+    /**
+     * Retorna o JSON pré-serializado da notificação, serializando apenas se ela já saiu do log
+     */
+    public byte[] payloadOf(Notification notification) {
+        Entry entry = entryAt(notification.getId());
+        if (entry != null && entry.notification != null && entry.sequence == notification.getId()) {
+            return entry.payload;
+        }
+        return encode(notification);
+    }
+
+    /**
+     * Instante monotônico (System.nanoTime) em que a notificação entrou no log, ou -1 se ela já saiu
+     */
+    public long publishedNanos(long id) {
+        Entry entry = entryAt(id);
+        return entry != null && entry.notification != null && entry.sequence == id ? entry.publishedNanos : -1;
+    }
+
+    /**
+     * Monta um array JSON concatenando os payloads pré-serializados (sem passar pelo Jackson)
+     */
+    public byte[] toJsonArray(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return EMPTY_ARRAY;
+        }
+
+        byte[][] payloads = new byte[notifications.size()][];
+        int length = 1 + notifications.size();
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = payloadOf(notifications.get(i));
+            length += payloads[i].length;
+        }
+
+        byte[] json = new byte[length];
+        int position = 0;
+        json[position++] = '[';
+        for (int i = 0; i < payloads.length; i++) {
+            if (i > 0) {
+                json[position++] = ',';
+            }
+            System.arraycopy(payloads[i], 0, json, position, payloads[i].length);
+            position += payloads[i].length;
+        }
+        json[position] = ']';
+        return json;
+    }
+
+    /**
+     * Retorna a última sequência anexada (0 se vazio)
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Retorna a capacidade do buffer circular
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    private long oldestRetained(long last) {
+        return Math.max(firstSequence, last - ring.length + 1);
+    }
+
+    private Entry entryAt(long sequence) {
+        return ring[(int) (sequence & mask)];
+    }
+
+    private byte[] encode(Notification notification) {
+        try {
+            return objectMapper.writeValueAsBytes(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar notificação " + notification.getId(), e);
+        }
+    }
+
+    /**
+     * Notificação, seu JSON e o instante de publicação, gravados juntos em um único slot
+     * (notification nula = lacuna na sequência)
+     */
+    private static final class Entry {
+        final long sequence;
+        final Notification notification;
+        final byte[] payload;
+        final long publishedNanos;
+
+        Entry(long sequence, Notification notification, byte[] payload, long publishedNanos) {
+            this.sequence = sequence;
+            this.notification = notification;
+            this.payload = payload;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+}
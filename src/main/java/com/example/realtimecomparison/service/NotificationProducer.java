@@ -0,0 +1,426 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Produtor de notificações com perfil de chegada configurável em tempo de execução
+ * (taxa constante, rajadas ou chegadas de Poisson) e distribuição de tamanho de payload.
+ * Uma thread gera as notificações numa fila limitada; outra as publica em lotes com saveAll.
+ * Quando o fan-out não acompanha, a fila enche e o gerador bloqueia (backpressure) em vez de acumular memória.
+ */
+@Component
+public class NotificationProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationProducer.class);
+
+    // Atraso máximo acumulado antes de o gerador desistir de recuperar o ritmo
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Notification> queue;
+    private final boolean autoStart;
+    private final Duration stopTimeout;
+
+    private volatile ProducerSettings settings;
+    private volatile boolean running;
+    private volatile long startedAtNanos;
+    private Thread generator;
+    private Thread publisher;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder produced = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder backpressureWaits = new LongAdder();
+    private final LongAdder backpressureNanos = new LongAdder();
+
+    public NotificationProducer(NotificationService notificationService,
+                                ObjectMapper objectMapper,
+                                @Value("${realtime.producer.enabled:true}") boolean autoStart,
+                                @Value("${realtime.producer.queue-capacity:10000}") int queueCapacity,
+                                @Value("${realtime.producer.stop-timeout-ms:10000}") long stopTimeoutMs,
+                                @Value("${realtime.producer.profile:constant}") String profile,
+                                @Value("${realtime.producer.rate-per-second:0.2}") double ratePerSecond,
+                                @Value("${realtime.producer.batch-size:500}") int batchSize,
+                                @Value("${realtime.producer.topics:" + Notification.DEFAULT_TOPIC + "}") List<String> topics) {
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.autoStart = autoStart;
+        this.stopTimeout = Duration.ofMillis(stopTimeoutMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        ProducerSettings initial = new ProducerSettings();
+        initial.setProfile(Profile.from(profile));
+        initial.setRatePerSecond(ratePerSecond);
+        initial.setBatchSize(batchSize);
+        initial.setTopics(topics);
+        initial.validate();
+        this.settings = initial;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (autoStart) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    /**
+     * Inicia a geração e a publicação (sem efeito se já estiver em execução). Recusa iniciar enquanto
+     * as threads de uma execução anterior não terminaram, para nunca haver dois publicadores.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (isAlive(generator) || isAlive(publisher)) {
+            throw new IllegalStateException("Produtor anterior ainda está encerrando");
+        }
+        running = true;
+        startedAtNanos = System.nanoTime();
+        produced.reset();
+        published.reset();
+        backpressureWaits.reset();
+        backpressureNanos.reset();
+
+        generator = Thread.ofPlatform().name("notification-generator").daemon().start(this::generate);
+        publisher = Thread.ofPlatform().name("notification-publisher").daemon().start(this::publishBatches);
+        logger.info("Produtor de notificações iniciado: {}", settings);
+    }
+
+    /**
+     * Para a geração; notificações já enfileiradas ainda são publicadas por até stop-timeout-ms.
+     * Passado esse prazo, o restante da fila é descartado e o publicador é interrompido. A espera
+     * acontece fora do monitor, para não bloquear update() e getStatus() enquanto a fila drena.
+     */
+    public void stop() {
+        Thread stoppingGenerator;
+        Thread stoppingPublisher;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            stoppingGenerator = generator;
+            stoppingPublisher = publisher;
+        }
+        stoppingGenerator.interrupt();
+        try {
+            long deadline = System.nanoTime() + stopTimeout.toNanos();
+            boolean stopped = stoppingGenerator.join(remaining(deadline))
+                    && stoppingPublisher.join(remaining(deadline));
+            if (!stopped) {
+                int discarded = queue.size();
+                queue.clear();
+                stoppingGenerator.interrupt();
+                stoppingPublisher.interrupt();
+                logger.warn("Produtor não terminou em {}ms; {} notificações enfileiradas descartadas",
+                        stopTimeout.toMillis(), discarded);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        logger.info("Produtor de notificações parado: {} produzidas, {} publicadas", produced.sum(), published.sum());
+    }
+
+    private static boolean isAlive(Thread thread) {
+        return thread != null && thread.isAlive();
+    }
+
+    private static Duration remaining(long deadlineNanos) {
+        return Duration.ofNanos(Math.max(1, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Aplica uma alteração parcial das configurações; campos ausentes mantêm o valor atual
+     */
+    public synchronized ProducerSettings update(Map<String, Object> changes) {
+        ProducerSettings updated;
+        try {
+            updated = objectMapper.updateValue(settings.copy(), changes);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Configuração inválida: " + e.getMessage(), e);
+        }
+        updated.validate();
+        settings = updated;
+
+        // Acorda o gerador para que a nova taxa valha imediatamente
+        Thread current = generator;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+        logger.info("Configuração do produtor alterada: {}", updated);
+        return updated;
+    }
+
+    /**
+     * Estado atual do produtor
+     */
+    public ProducerStatus getStatus() {
+        long publishedCount = published.sum();
+        double elapsedSeconds = running ? (System.nanoTime() - startedAtNanos) / 1e9 : 0;
+        return new ProducerStatus(
+                running,
+                settings,
+                produced.sum(),
+                publishedCount,
+                queue.size(),
+                queue.size() + queue.remainingCapacity(),
+                backpressureWaits.sum(),
+                TimeUnit.NANOSECONDS.toMillis(backpressureNanos.sum()),
+                elapsedSeconds > 0 ? publishedCount / elapsedSeconds : 0.0);
+    }
+
+    /**
+     * Laço do gerador: agenda cada chegada (ou rajada) segundo o perfil e enfileira as notificações
+     */
+    private void generate() {
+        ProducerSettings current = null;
+        long next = 0;
+        while (running) {
+            ProducerSettings latest = settings;
+            if (latest != current) {
+                current = latest;
+                next = System.nanoTime();
+            }
+
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                if (Thread.interrupted()) {
+                    return;
+                }
+                continue;
+            }
+
+            int count = current.getProfile() == Profile.BURST ? current.getBurstSize() : 1;
+            try {
+                for (int i = 0; i < count; i++) {
+                    enqueue(newNotification(current));
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            next += intervalNanos(current);
+            if (System.nanoTime() - next > MAX_LAG_NANOS) {
+                // Ficou para trás (backpressure): retoma o ritmo a partir de agora em vez de disparar em rajada
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    private void enqueue(Notification notification) throws InterruptedException {
+        if (!queue.offer(notification)) {
+            backpressureWaits.increment();
+            long start = System.nanoTime();
+            queue.put(notification);
+            backpressureNanos.add(System.nanoTime() - start);
+        }
+        produced.increment();
+    }
+
+    /**
+     * Laço do publicador: drena a fila em lotes de até batchSize e publica cada lote de uma vez
+     */
+    private void publishBatches() {
+        List<Notification> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, settings.getBatchSize() - 1);
+                notificationService.publishAll(batch);
+                published.add(batch.size());
+                logger.debug("Lote de {} notificações publicado", batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Erro ao publicar lote de {} notificações", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static long intervalNanos(ProducerSettings settings) {
+        return switch (settings.getProfile()) {
+            case CONSTANT -> (long) (1e9 / settings.getRatePerSecond());
+            // Intervalos exponenciais entre chegadas resultam em um processo de Poisson com a taxa informada
+            case POISSON -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * 1e9 / settings.getRatePerSecond());
+            case BURST -> TimeUnit.MILLISECONDS.toNanos(settings.getBurstIntervalMs());
+        };
+    }
+
+    private Notification newNotification(ProducerSettings settings) {
+        long number = sequence.incrementAndGet();
+        String[] messages = {
+            "Nova notificação #" + number,
+            "Sistema atualizado - " + Instant.now().toString(),
+            "Alerta de segurança detectado",
+            "Backup concluído com sucesso",
+            "Usuário conectado: user" + ThreadLocalRandom.current().nextInt(1000, 9999),
+            "Processo finalizado: " + ThreadLocalRandom.current().nextInt(1, 100),
+            "Memória utilizada: " + ThreadLocalRandom.current().nextInt(60, 95) + "%",
+            "Temperatura do servidor: " + ThreadLocalRandom.current().nextInt(35, 75) + "°C"
+        };
+        String message = messages[ThreadLocalRandom.current().nextInt(messages.length)];
+
+        // Tamanho em bytes UTF-8 (as mensagens têm acentos); o preenchimento 'x' ocupa um byte por caractere
+        int size = payloadSize(settings);
+        int bytes = message.getBytes(StandardCharsets.UTF_8).length;
+        if (size > bytes) {
+            message = message + " " + "x".repeat(size - bytes - 1);
+        }
+        List<String> topics = settings.getTopics();
+        return new Notification(message, topics.get(ThreadLocalRandom.current().nextInt(topics.size())));
+    }
+
+    /**
+     * Tamanho alvo da mensagem em bytes UTF-8 (0 = mensagem curta sem preenchimento)
+     */
+    private static int payloadSize(ProducerSettings settings) {
+        int size = settings.getPayloadBytes();
+        if (size == 0) {
+            return 0;
+        }
+        return switch (settings.getPayloadDistribution()) {
+            case FIXED -> size;
+            case UNIFORM -> ThreadLocalRandom.current().nextInt(size, settings.getPayloadMaxBytes() + 1);
+            case EXPONENTIAL -> (int) Math.min(settings.getPayloadMaxBytes(),
+                    -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * size);
+        };
+    }
+
+    /**
+     * Perfil de chegada das notificações
+     */
+    public enum Profile {
+        CONSTANT, BURST, POISSON;
+
+        @JsonCreator
+        public static Profile from(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Distribuição do tamanho das mensagens
+     */
+    public enum PayloadDistribution {
+        FIXED, UNIFORM, EXPONENTIAL;
+
+        @JsonCreator
+        public static PayloadDistribution from(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Configuração do produtor. ratePerSecond vale para CONSTANT e POISSON; BURST publica burstSize
+     * notificações a cada burstIntervalMs. payloadBytes é o tamanho fixo, mínimo (UNIFORM) ou médio
+     * (EXPONENTIAL) da mensagem em bytes UTF-8, limitado a payloadMaxBytes. Cada notificação recebe um tópico
+     * sorteado uniformemente de topics.
+     */
+    @lombok.Data
+    public static class ProducerSettings {
+        private Profile profile = Profile.CONSTANT;
+        private double ratePerSecond = 0.2;
+        private int burstSize = 100;
+        private long burstIntervalMs = 1000;
+        private PayloadDistribution payloadDistribution = PayloadDistribution.FIXED;
+        private int payloadBytes = 0;
+        private int payloadMaxBytes = Notification.MAX_MESSAGE_LENGTH;
+        private int batchSize = 500;
+        private List<String> topics = List.of(Notification.DEFAULT_TOPIC);
+
+        ProducerSettings copy() {
+            ProducerSettings copy = new ProducerSettings();
+            copy.profile = profile;
+            copy.ratePerSecond = ratePerSecond;
+            copy.burstSize = burstSize;
+            copy.burstIntervalMs = burstIntervalMs;
+            copy.payloadDistribution = payloadDistribution;
+            copy.payloadBytes = payloadBytes;
+            copy.payloadMaxBytes = payloadMaxBytes;
+            copy.batchSize = batchSize;
+            copy.topics = topics;
+            return copy;
+        }
+
+        void validate() {
+            if (profile == null || payloadDistribution == null) {
+                throw new IllegalArgumentException("profile e payloadDistribution são obrigatórios");
+            }
+            if (ratePerSecond <= 0 || ratePerSecond > 100_000) {
+                throw new IllegalArgumentException("ratePerSecond deve estar entre 0 (exclusivo) e 100000");
+            }
+            if (burstSize < 1 || burstSize > 100_000 || burstIntervalMs < 1) {
+                throw new IllegalArgumentException("burstSize deve estar entre 1 e 100000 e burstIntervalMs ser positivo");
+            }
+            if (payloadBytes < 0 || payloadMaxBytes < payloadBytes || payloadMaxBytes > Notification.MAX_MESSAGE_LENGTH) {
+                throw new IllegalArgumentException("payloadBytes e payloadMaxBytes devem satisfazer 0 <= payloadBytes <= payloadMaxBytes <= "
+                        + Notification.MAX_MESSAGE_LENGTH);
+            }
+            if (batchSize < 1 || batchSize > 10_000) {
+                throw new IllegalArgumentException("batchSize deve estar entre 1 e 10000");
+            }
+            if (topics == null || topics.isEmpty()) {
+                throw new IllegalArgumentException("topics deve conter ao menos um tópico");
+            }
+            topics.forEach(Topics::validate);
+            topics = List.copyOf(topics);
+        }
+    }
+
+    /**
+     * Estado e contadores do produtor desde o último start
+     */
+    @lombok.Value
+    public static class ProducerStatus {
+        boolean running;
+        ProducerSettings settings;
+        long produced;
+        long published;
+        int queueDepth;
+        int queueCapacity;
+        long backpressureWaits;
+        long backpressureMillis;
+        double publishedPerSecond;
+    }
+}
@@ -2,90 +2,239 @@ package com.example.realtimecomparison.service;
 
 import com.example.realtimecomparison.entity.Notification;
 import com.example.realtimecomparison.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class NotificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     
+    /**
+     * Header de resposta com o cursor a ser enviado em ?after= na próxima requisição
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    /**
+     * Header de resposta com o cursor a ser enviado em ?before= para buscar a página mais antiga seguinte
+     */
+    public static final String PREVIOUS_CURSOR_HEADER = "X-Previous-Cursor";
+    
+    /**
+     * Maior página aceita nas consultas de histórico
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+    
+    /**
+     * Maior página lida do banco nas consultas por cursor ou timestamp que saem da janela do log;
+     * o cliente continua do fim da página com o X-Next-Cursor
+     */
+    public static final int CURSOR_PAGE_SIZE = 1000;
+    
     @Autowired
     public NotificationRepository notificationRepository;
     
+    // Serializa persistência e append entre os publicadores (produtor, envio manual, gerador de carga);
+    // ReentrantLock em vez de synchronized para não prender a thread portadora com threads virtuais
+    private final ReentrantLock publishLock = new ReentrantLock();
+    
+    @Value("${realtime.fanout.queue-capacity:1024}")
+    private int dispatchQueueCapacity;
+    
+    // Lotes gravados aguardando entrega, na ordem dos ids; uma única thread os entrega aos transportes
+    private BlockingQueue<PublishedBatch> dispatchQueue;
+    private Thread dispatcher;
+    
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
+    @Autowired
+    private DashboardService dashboardService;
+    
+    @Autowired
+    private TransportMeters transportMeters;
+    
     @Autowired
     private LongPollingManager longPollingManager;
     
+    @Autowired
+    private SseManager sseManager;
+    
+    @Autowired
+    private RawWebSocketManager rawWebSocketManager;
+    
     @Autowired
     private MetricsService metricsService;
     
-    private int notificationCounter = 0;
+    @Autowired
+    private NotificationLog notificationLog;
+    
+    @Autowired
+    private SubscriptionRegistry subscriptionRegistry;
+    
+    @PostConstruct
+    public void startDispatcher() {
+        dispatchQueue = new ArrayBlockingQueue<>(dispatchQueueCapacity);
+        dispatcher = Thread.ofPlatform().name("notification-dispatcher").daemon().start(this::dispatch);
+    }
+    
+    @PreDestroy
+    public void stopDispatcher() {
+        dispatcher.interrupt();
+    }
     
     /**
-     * Gera notificações automaticamente a cada 5 segundos
+     * Persiste a notificação e a entrega a todos os transportes
      */
-    @Scheduled(fixedRate = 5000)
-    public void createRandomNotification() {
-        notificationCounter++;
+    public Notification publish(Notification notification) {
+        return publishAll(List.of(notification)).get(0);
+    }
+    
+    /**
+     * Persiste um lote de notificações numa única transação e o enfileira para entrega a todos os
+     * transportes. Long polling, SSE e WebSocket puro recebem o lote inteiro de uma vez. O lock de
+     * publicação cobre só a gravação e o enfileiramento, então a fila está em ordem de id e um cliente
+     * lento atrasa apenas a thread de entrega, nunca os publicadores. Com a fila cheia o publicador
+     * espera (backpressure).
+     */
+    public List<Notification> publishAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
         
-        // Criar notificação com mensagem aleatória
-        String[] messages = {
-            "Nova notificação #" + notificationCounter,
-            "Sistema atualizado - " + Instant.now().toString(),
-            "Alerta de segurança detectado",
-            "Backup concluído com sucesso",
-            "Usuário conectado: user" + ThreadLocalRandom.current().nextInt(1000, 9999),
-            "Processo finalizado: " + ThreadLocalRandom.current().nextInt(1, 100),
-            "Memória utilizada: " + ThreadLocalRandom.current().nextInt(60, 95) + "%",
-            "Temperatura do servidor: " + ThreadLocalRandom.current().nextInt(35, 75) + "°C"
-        };
+        long start = System.nanoTime();
+        publishLock.lock();
+        try {
+            List<Notification> saved = saveAll(notifications);
+            try {
+                dispatchQueue.put(new PublishedBatch(saved, start));
+            } catch (InterruptedException e) {
+                // Já gravadas: os clientes de polling ainda as recebem pelo log
+                Thread.currentThread().interrupt();
+                logger.warn("Publicação interrompida antes da entrega de {} notificações", saved.size());
+            }
+            return saved;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+    
+    /**
+     * Laço da thread de entrega: entrega os lotes um de cada vez, na ordem em que foram gravados,
+     * de modo que um transporte nunca recebe um lote antes do anterior
+     */
+    private void dispatch() {
+        while (true) {
+            PublishedBatch batch;
+            try {
+                batch = dispatchQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                deliver(batch.notifications, batch.startNanos);
+            } catch (Exception e) {
+                logger.error("Erro ao entregar lote de {} notificações", batch.notifications.size(), e);
+            }
+        }
+    }
+    
+    private void deliver(List<Notification> saved, long start) {
+        // Notificar clientes em long polling
+        transportMeters.fanout("long-polling").record(() -> notifyLongPollingClients(saved));
         
-        String randomMessage = messages[ThreadLocalRandom.current().nextInt(messages.length)];
-        Notification notification = new Notification(randomMessage);
+        // Enviar via WebSocket
+        transportMeters.fanout("stomp").record(() -> saved.forEach(this::notifyWebSocketClients));
         
-        // Salvar no banco
-        notification = notificationRepository.save(notification);
-        logger.info("Nova notificação criada: {}", notification);
+        // Enviar via Server-Sent Events
+        transportMeters.fanout("sse").record(() -> notifySseClients(saved));
         
-        // Notificar clientes em long polling
-        notifyLongPollingClients(notification);
+        // Enviar via WebSocket puro (frames binários)
+        transportMeters.fanout("websocket-raw").record(() -> notifyRawWebSocketClients(saved));
         
-        // Enviar via WebSocket
-        notifyWebSocketClients(notification);
+        // Atualizar métricas e o snapshot do dashboard
+        metricsService.incrementNotificationCount("websocket", saved.size());
+        dashboardService.onPublished(saved);
+        transportMeters.recordPublish(System.nanoTime() - start, saved.size());
+    }
+    
+    /**
+     * Persiste um lote com saveAll e o anexa ao log em memória na ordem dos ids,
+     * carimbando o instante de publicação antes da serialização. A inserção e o append acontecem
+     * sob o lock de publicação: um lote só recebe ids depois que o anterior foi confirmado e anexado,
+     * então o log nunca expõe um id enquanto outro menor ainda está sendo gravado.
+     */
+    public List<Notification> saveAll(List<Notification> notifications) {
+        publishLock.lock();
+        try {
+            List<Notification> saved = notificationRepository.saveAll(notifications);
+            Instant publishedAt = Instant.now();
+            saved.forEach(notification -> notification.setPublishedAt(publishedAt));
+            saved.forEach(notificationLog::append);
+            return saved;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+    
+    /**
+     * Lote gravado aguardando entrega; startNanos é o início do publishAll
+     */
+    private static final class PublishedBatch {
+        final List<Notification> notifications;
+        final long startNanos;
         
-        // Atualizar métricas
-        metricsService.incrementNotificationCount("websocket");
+        PublishedBatch(List<Notification> notifications, long startNanos) {
+            this.notifications = notifications;
+            this.startNanos = startNanos;
+        }
     }
     
     /**
      * Notifica clientes em long polling
-     */
-    private void notifyLongPollingClients(Notification notification) {
+    private void notifyLongPollingClients(List<Notification> notifications) {
         try {
-            longPollingManager.notifyClients(notification);
-            logger.debug("Clientes de long polling notificados sobre: {}", notification.getId());
+            longPollingManager.submit(notifications);
+            logger.debug("{} notificações entregues ao long polling", notifications.size());
         } catch (Exception e) {
             logger.error("Erro ao notificar clientes de long polling", e);
         }
     }
     
     /**
-     * Notifica clientes via WebSocket
+     * Notifica clientes via WebSocket com o JSON já serializado (sem conversão pelo Jackson).
+     * A mesma mensagem vai para /topic/notifications (todos os tópicos) e /topic/notifications.{tópico};
+     * o broker só percorre as assinaturas do destino.
      */
     private void notifyWebSocketClients(Notification notification) {
         try {
-            messagingTemplate.convertAndSend("/topic/notifications", notification);
+            Message<byte[]> message = MessageBuilder
+                    .withPayload(notificationLog.payloadOf(notification))
+                    .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                    .build();
+            messagingTemplate.send("/topic/notifications", message);
+            messagingTemplate.send("/topic/notifications." + notification.getTopic(), message);
             logger.debug("Clientes WebSocket notificados sobre: {}", notification.getId());
         } catch (Exception e) {
             logger.error("Erro ao notificar clientes WebSocket", e);
@@ -93,42 +242,170 @@ public class NotificationService {
     }
     
     /**
-     * Busca notificações criadas após um timestamp
+     * Notifica clientes via Server-Sent Events
+     */
+    private void notifySseClients(List<Notification> notifications) {
+        try {
+            sseManager.notifyClients(notifications);
+            logger.debug("Clientes SSE notificados sobre {} notificações", notifications.size());
+        } catch (Exception e) {
+            logger.error("Erro ao notificar clientes SSE", e);
+        }
+    }
+    
+    /**
+     * Notifica clientes do endpoint WebSocket puro
+     */
+    private void notifyRawWebSocketClients(List<Notification> notifications) {
+        try {
+            rawWebSocketManager.notifyClients(notifications);
+            logger.debug("Clientes WebSocket raw notificados sobre {} notificações", notifications.size());
+        } catch (Exception e) {
+            logger.error("Erro ao notificar clientes WebSocket raw", e);
+        }
+    }
+    
+    /**
+     * Retorna as notificações como array JSON montado a partir dos payloads pré-serializados
+     */
+    public byte[] toJson(List<Notification> notifications) {
+        return notificationLog.toJsonArray(notifications);
+    }
+    
+    /**
+     * Busca notificações criadas após um timestamp, da mais recente para a mais antiga. Fora da janela
+     * do log, apenas as CURSOR_PAGE_SIZE primeiras em ordem de id
      */
     public List<Notification> getNotificationsAfter(Instant since) {
-        return notificationRepository.findNotificationsAfter(since);
+        // O banco só é consultado quando o timestamp é mais antigo que a janela do log
+        return notificationLog.findAfter(since)
+                .orElseGet(() -> {
+                    List<Notification> page = new ArrayList<>(
+                            notificationRepository.findNotificationsAfter(since, PageRequest.of(0, CURSOR_PAGE_SIZE)));
+                    Collections.reverse(page);
+                    return page;
+                });
+    }
+    
+    /**
+     * Busca notificações com sequência maior que o cursor, em ordem crescente. Fora da janela do log,
+     * apenas a página de CURSOR_PAGE_SIZE seguinte ao cursor
+     */
+    public List<Notification> getNotificationsAfterCursor(long after) {
+        return notificationLog.readAfter(after)
+                .orElseGet(() -> notificationRepository.findNotificationsAfterId(after, PageRequest.of(0, CURSOR_PAGE_SIZE)));
+    }
+    
+    /**
+     * Retorna a última sequência publicada
+     */
+    public long getLastSequence() {
+        return notificationLog.getLastSequence();
+    }
+    
+    /**
+     * Calcula o próximo cursor a partir do cursor atual e das notificações retornadas
+     */
+    public static long nextCursor(long current, List<Notification> notifications) {
+        long cursor = current;
+        for (Notification notification : notifications) {
+            if (notification.getId() > cursor) {
+                cursor = notification.getId();
+            }
+        }
+        return cursor;
+    }
+    
+    /**
+     * Próximo cursor de uma consulta que examinou tudo até head (lido antes da consulta). Uma página
+     * cheia pode ter sido truncada: o cursor para no fim dela e o cliente continua dali; senão
+     * avança até head, inclusive sobre notificações de outros tópicos
+     */
+    public static long nextCursor(long current, long head, List<Notification> page) {
+        if (page.size() >= CURSOR_PAGE_SIZE) {
+            return nextCursor(0, page);
+        }
+        return Math.max(head, nextCursor(current, page));
     }
     
     /**
-     * Busca todas as notificações não entregues
+     * Resolve o cursor de leitura: o ?after= explícito, o cursor confirmado do cliente
+     * ou, para clientes novos/anônimos, a sequência atual (apenas notificações futuras)
      */
-    public List<Notification> getUndeliveredNotifications() {
-        return notificationRepository.findUndeliveredNotifications();
+    public long resolveCursor(Long after, String clientId) {
+        if (after != null) {
+            return after;
+        }
+        long head = notificationLog.getLastSequence();
+        if (clientId != null && !clientId.isEmpty()) {
+            return subscriptionRegistry.getCursor(clientId).orElse(head);
+        }
+        return head;
+    }
+    
+    /**
+     * Confirma a entrega até o cursor informado para o cliente (sem escrita na tabela de notificações)
+     */
+    public void acknowledge(String clientId, long cursor) {
+        if (clientId != null && !clientId.isEmpty()) {
+            subscriptionRegistry.acknowledge(clientId, cursor);
+        }
+    }
+    
+    /**
+     * Quantas notificações o cliente mais atrasado ainda não confirmou
+     */
+    public long getPendingCount() {
+        return subscriptionRegistry.getMaxLag(notificationLog.getLastSequence());
     }
     
     /**
      * Busca as últimas N notificações
      */
     public List<Notification> getLatestNotifications(int limit) {
-        return notificationRepository.findLatestNotifications().stream()
-                .limit(limit)
-                .toList();
+        return getNotificationsBefore(null, limit);
+    }
+    
+    /**
+     * Página de notificações anteriores ao cursor (nulo = as mais recentes), da mais nova para a mais antiga.
+     * O limite é aplicado no banco e fica entre 1 e MAX_PAGE_SIZE.
+     */
+    public List<Notification> getNotificationsBefore(Long before, int limit) {
+        Pageable page = PageRequest.of(0, pageSize(limit));
+        return before == null
+                ? notificationRepository.findLatestNotifications(page)
+                : notificationRepository.findNotificationsBefore(before, page);
+    }
+    
+    /**
+     * Cursor da página seguinte (?before=): o menor id da página, ou nulo se ela veio incompleta
+     */
+    public static Long previousCursor(List<Notification> page, int limit) {
+        return page.isEmpty() || page.size() < pageSize(limit) ? null : page.get(page.size() - 1).getId();
+    }
+    
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
     
     /**
-     * Marca notificação como entregue
+     * Conta notificações dos tópicos informados (nulo = todos) criadas após um timestamp
      */
-    public void markAsDelivered(Long notificationId) {
-        notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setDelivered(true);
-            notificationRepository.save(notification);
-        });
+    public long countNotificationsAfter(Instant since, Set<String> topics) {
+        return topics == null
+                ? notificationRepository.countNotificationsAfter(since)
+                : notificationRepository.countNotificationsAfterInTopics(since, topics);
     }
     
     /**
-     * Conta notificações criadas após um timestamp
+     * Conta notificações dos tópicos informados (nulo = todos) com sequência maior que o cursor:
+     * pelo log em memória quando ele cobre o cursor, senão com COUNT no banco
      */
-    public long countNotificationsAfter(Instant since) {
-        return notificationRepository.countNotificationsAfter(since);
+    public long countNotificationsAfterCursor(long after, Set<String> topics) {
+        return notificationLog.readAfter(after)
+                .map(notifications -> (long) Topics.filter(notifications, topics).size())
+                .orElseGet(() -> topics == null
+                        ? notificationRepository.countByIdGreaterThan(after)
+                        : notificationRepository.countByIdGreaterThanAndTopicIn(after, topics));
     }
 }
@@ -0,0 +1,209 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Endpoint WebSocket puro (sem STOMP nem SockJS) com frames binários mínimos:
+ * [tipo:1][id:8][publishedAt epoch ms:8][tamanho do tópico:1][tópico UTF-8][tamanho da mensagem:4][mensagem UTF-8],
+ * big-endian. Os tópicos assinados vêm na URL da conexão (/ws-raw?topics=a,b; ausente = todos).
+ */
+@Component
+public class RawWebSocketManager extends BinaryWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawWebSocketManager.class);
+
+    public static final byte FRAME_NOTIFICATION = 1;
+
+    private final Map<String, RawClient> sessions = new ConcurrentHashMap<>();
+    private final TopicIndex<RawClient> topicIndex = new TopicIndex<>();
+
+    // Custo de cada broadcast para todas as sessões, em microssegundos
+    private final LatencyHistogram broadcastMicros = new LatencyHistogram();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private FanoutExecutor fanoutExecutor;
+
+    @Value("${realtime.raw-websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${realtime.raw-websocket.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+        Set<String> topics;
+        try {
+            topics = session.getUri() == null ? null : Topics.parse(UriComponentsBuilder.fromUri(session.getUri())
+                    .build().getQueryParams().getFirst("topics"));
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+
+        // O decorator serializa envios concorrentes na mesma sessão
+        RawClient client = new RawClient(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit), topics);
+        sessions.put(session.getId(), client);
+        topicIndex.add(client, topics);
+        connections.increment();
+        logger.debug("Sessão WebSocket raw {} conectada. Total de sessões: {}", session.getId(), sessions.size());
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        unregister(session.getId());
+        logger.debug("Sessão WebSocket raw {} encerrada: {}", session.getId(), status);
+    }
+
+    @Override
+    public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) {
+        logger.debug("Erro de transporte na sessão WebSocket raw {}", session.getId(), exception);
+        unregister(session.getId());
+    }
+
+    /**
+     * Notifica todas as sessões com uma nova notificação
+     */
+    public void notifyClients(Notification notification) {
+        notifyClients(List.of(notification));
+    }
+
+    /**
+     * Notifica as sessões que assinam o tópico de cada notificação; cada frame é codificado
+     * uma única vez e compartilhado
+     */
+    public void notifyClients(List<Notification> notifications) {
+        if (sessions.isEmpty() || notifications.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (Notification notification : notifications) {
+            byte[] frame = encode(notification);
+            LongAdder delivered = new LongAdder();
+            fanoutExecutor.forEach(topicIndex.match(List.of(notification)), client -> {
+                try {
+                    // Cada BinaryMessage tem seu próprio ByteBuffer sobre o mesmo array
+                    client.session.sendMessage(new BinaryMessage(frame));
+                    delivered.increment();
+                } catch (Exception e) {
+                    logger.debug("Falha ao enviar para sessão WebSocket raw {}", client.session.getId(), e);
+                    unregister(client.session.getId());
+                }
+            });
+            long count = delivered.sum();
+            framesSent.add(count);
+            bytesSent.add(count * frame.length);
+            metricsService.incrementNotificationCount("websocket-raw", count);
+        }
+        broadcastMicros.record((System.nanoTime() - start) / 1_000);
+    }
+
+    /**
+     * Retorna o número de sessões conectadas
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Conexões aceitas desde a inicialização
+     */
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * Sessões por tópico ("*" = todos os tópicos)
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        return topicIndex.getSubscriberCounts();
+    }
+
+    /**
+     * Distribuição do custo de broadcast (µs)
+     */
+    public LatencyHistogram.Snapshot getBroadcastCost() {
+        return broadcastMicros.snapshot();
+    }
+
+    /**
+     * Codifica a notificação no formato binário do endpoint
+     */
+    static byte[] encode(Notification notification) {
+        // Tópicos válidos são ASCII com até 64 caracteres: o tamanho sempre cabe em um byte
+        byte[] topic = notification.getTopic().getBytes(StandardCharsets.UTF_8);
+        byte[] message = notification.getMessage().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 8 + 8 + 1 + topic.length + 4 + message.length)
+                .put(FRAME_NOTIFICATION)
+                .putLong(notification.getId())
+                .putLong(publishedAt(notification).toEpochMilli())
+                .put((byte) topic.length)
+                .put(topic)
+                .putInt(message.length)
+                .put(message)
+                .array();
+    }
+
+    /**
+     * Instante de publicação (origem da latência de entrega); createdAt para notificações lidas do banco
+     */
+    private static Instant publishedAt(Notification notification) {
+        return notification.getPublishedAt() != null ? notification.getPublishedAt() : notification.getCreatedAt();
+    }
+
+    private void unregister(String sessionId) {
+        RawClient client = sessions.remove(sessionId);
+        if (client != null) {
+            topicIndex.remove(client, client.topics);
+        }
+    }
+
+    /**
+     * Sessão decorada e os tópicos que ela assina
+     */
+    private static final class RawClient {
+        final WebSocketSession session;
+        final Set<String> topics;
+
+        RawClient(WebSocketSession session, Set<String> topics) {
+            this.session = session;
+            this.topics = topics;
+        }
+    }
+}
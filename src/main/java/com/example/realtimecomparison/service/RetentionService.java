@@ -0,0 +1,183 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retenção da tabela de notificações. Mantém apenas as notificações mais novas que maxAgeMs e
+ * no máximo maxRows linhas (0 desliga cada política). As linhas expiradas são apagadas por faixas
+ * de id de até batchSize, cada uma em sua própria transação e com uma pausa entre elas, para que
+ * as consultas de polling nunca esperem por um DELETE longo.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Value("${realtime.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${realtime.retention.max-age-ms:3600000}")
+    private long maxAgeMs;
+
+    @Value("${realtime.retention.max-rows:100000}")
+    private long maxRows;
+
+    @Value("${realtime.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${realtime.retention.batch-pause-ms:10}")
+    private long batchPauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Duração de cada execução e de cada lote (que limita o tempo de lock), em milissegundos
+    private final LatencyHistogram purgeMillis = new LatencyHistogram();
+    private final LatencyHistogram batchMillis = new LatencyHistogram();
+    private final LongAdder rowsPurged = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+
+    private volatile long rowsRetained = -1;
+    private volatile long lastRunPurged;
+    private volatile Instant lastRunAt;
+
+    @Scheduled(fixedDelayString = "${realtime.retention.interval-ms:60000}",
+               initialDelayString = "${realtime.retention.interval-ms:60000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    /**
+     * Executa uma passada de retenção; retorna o número de linhas apagadas
+     * (0 se já houver outra passada em andamento)
+     */
+    public long purge() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long purged = 0;
+        try {
+            Long cutoffId = cutoffId();
+            Long minId = cutoffId == null ? null : notificationRepository.findMinId();
+            if (cutoffId != null && minId != null) {
+                for (long from = minId; from <= cutoffId; ) {
+                    long to = Math.min(cutoffId, from + batchSize - 1);
+                    long batchStart = System.nanoTime();
+                    purged += notificationRepository.deleteIdRange(from, to);
+                    batchMillis.record((System.nanoTime() - batchStart) / 1_000_000);
+                    from = to + 1;
+                    if (batchPauseMs > 0 && from <= cutoffId) {
+                        Thread.sleep(batchPauseMs);
+                    }
+                }
+            }
+            rowsRetained = notificationRepository.count();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            purgeMillis.record(elapsedMs);
+            rowsPurged.add(purged);
+            runs.increment();
+            lastRunPurged = purged;
+            lastRunAt = Instant.now();
+            dashboardService.onPurged(purged);
+            running.set(false);
+            if (purged > 0) {
+                logger.info("Retenção: {} notificações apagadas em {}ms", purged, elapsedMs);
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Maior id a apagar segundo as duas políticas (nulo = nada expirado)
+     */
+    private Long cutoffId() {
+        Long cutoff = null;
+        if (maxAgeMs > 0) {
+            // Limite superior lido antes da consulta por idade: uma notificação gravada entre as duas
+            // consultas tem id maior e não entra na faixa
+            Long maxId = notificationRepository.findMaxId();
+            // createdAt não segue exatamente a ordem dos ids: apaga só abaixo do primeiro id ainda recente,
+            // para nunca remover uma notificação dentro do prazo (as antigas além dele saem na próxima passada)
+            Long firstRecent = notificationRepository.findMinIdCreatedAtOrAfter(Instant.now().minusMillis(maxAgeMs));
+            if (maxId != null) {
+                cutoff = firstRecent != null ? Math.min(maxId, firstRecent - 1) : maxId;
+            }
+        }
+        if (maxRows > 0 && maxRows < Integer.MAX_VALUE) {
+            List<Long> beyondLimit = notificationRepository.findIdsNewestFirst(PageRequest.of((int) maxRows, 1));
+            if (!beyondLimit.isEmpty()) {
+                cutoff = cutoff == null ? beyondLimit.get(0) : Math.max(cutoff, beyondLimit.get(0));
+            }
+        }
+        return cutoff;
+    }
+
+    /**
+     * Linhas apagadas desde a inicialização
+     */
+    public long getRowsPurged() {
+        return rowsPurged.sum();
+    }
+
+    /**
+     * Configuração e contadores da retenção
+     */
+    public RetentionStatus getStatus() {
+        return new RetentionStatus(
+            enabled,
+            maxAgeMs,
+            maxRows,
+            batchSize,
+            running.get(),
+            rowsRetained,
+            rowsPurged.sum(),
+            runs.sum(),
+            lastRunPurged,
+            lastRunAt,
+            purgeMillis.snapshot(),
+            batchMillis.snapshot()
+        );
+    }
+
+    /**
+     * Estado da retenção; rowsRetained é a contagem ao fim da última passada (-1 antes da primeira)
+     */
+    @lombok.Value
+    public static class RetentionStatus {
+        boolean enabled;
+        long maxAgeMs;
+        long maxRows;
+        int batchSize;
+        boolean running;
+        long rowsRetained;
+        long rowsPurged;
+        long runs;
+        long lastRunPurged;
+        Instant lastRunAt;
+        LatencyHistogram.Snapshot purgeLatencyMs;
+        LatencyHistogram.Snapshot batchLatencyMs;
+    }
+}
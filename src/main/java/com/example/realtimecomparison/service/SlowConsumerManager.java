@@ -0,0 +1,234 @@
+package com.example.realtimecomparison.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Proteção contra consumidores lentos nas sessões STOMP: cada sessão recebe um buffer de saída
+ * limitado (SlowConsumerSessionDecorator) esvaziado por uma tarefa própria, e a política de overflow
+ * decide o que fazer quando o cliente não acompanha: descartar as mais antigas, conflar os deltas de métricas
+ * ou desconectar. Uma varredura periódica encerra as sessões com envio bloqueado além do limite
+ * mesmo quando não chega tráfego novo para elas.
+ */
+@Component
+public class SlowConsumerManager implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerManager.class);
+
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    private final long sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService senders;
+
+    public SlowConsumerManager(@Value("${realtime.websocket.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+                               @Value("${realtime.websocket.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                               @Value("${realtime.websocket.outbound.overflow-policy:drop-oldest}") String overflowPolicy,
+                               @Value("${realtime.websocket.outbound.max-senders:256}") int maxSenders,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.overflowPolicy = OverflowPolicy.from(overflowPolicy);
+        // Um envio bloqueado ocupa a thread da sua sessão até o limite de tempo; com threads virtuais isso é barato,
+        // com threads de plataforma o pool é limitado e a recusa segue a política de overflow
+        this.senders = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-sender-", 0).factory())
+                : new ThreadPoolExecutor(0, maxSenders, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        Thread.ofPlatform().name("ws-sender-", 0).daemon().factory(), rejectionHandler());
+        logger.info("Buffer de saída WebSocket: {} bytes, {}ms por envio, política {}",
+                bufferSizeLimit, sendTimeLimitMs, this.overflowPolicy);
+    }
+
+    /**
+     * Pool de envio cheio: a sessão cuja tarefa foi recusada aplica a política de overflow
+     */
+    private static RejectedExecutionHandler rejectionHandler() {
+        return (task, executor) -> {
+            if (!executor.isShutdown() && task instanceof SlowConsumerSessionDecorator.Drain drain) {
+                drain.rejected();
+            }
+        };
+    }
+
+    /**
+     * Decora o handler STOMP para que ele envie pelas sessões com buffer limitado
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+                SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(session, SlowConsumerManager.this, senders);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Encerra as sessões com envio bloqueado além do limite e retoma buffers sem tarefa de envio
+     */
+    @Scheduled(fixedDelayString = "${realtime.websocket.outbound.sweep-interval-ms:1000}")
+    public void sweep() {
+        sessions.values().forEach(SlowConsumerSessionDecorator::sweep);
+    }
+
+    long getSendTimeLimitNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+    }
+
+    long getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    int getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    void recordDropped(long count) {
+        dropped.add(count);
+    }
+
+    void recordConflated() {
+        conflated.increment();
+    }
+
+    void recordDisconnect() {
+        disconnects.increment();
+    }
+
+    /**
+     * Sessões STOMP conectadas
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Bytes aguardando envio somados em todas as sessões
+     */
+    public long getBufferedBytes() {
+        long total = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            total += session.getBufferedBytes();
+        }
+        return total;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    public long getDisconnectCount() {
+        return disconnects.sum();
+    }
+
+    /**
+     * Configuração, totais e o estado do buffer de cada sessão conectada
+     */
+    public OutboundStats getStats() {
+        List<SessionBuffer> buffers = new ArrayList<>(sessions.size());
+        long bufferedBytes = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            SessionBuffer buffer = new SessionBuffer(
+                session.getId(),
+                session.getBufferedBytes(),
+                session.getBufferedMessages(),
+                session.getMessagesSent(),
+                session.getDropped(),
+                session.getConflated()
+            );
+            bufferedBytes += buffer.getBufferedBytes();
+            buffers.add(buffer);
+        }
+        return new OutboundStats(overflowPolicy, sendTimeLimitMs, bufferSizeLimit, buffers.size(), bufferedBytes,
+                dropped.sum(), conflated.sum(), disconnects.sum(), buffers);
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * O que fazer quando o buffer de saída de uma sessão passa do limite
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST, CONFLATE, DISCONNECT;
+
+        @JsonCreator
+        public static OverflowPolicy from(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Totais desde a inicialização e o buffer de cada sessão
+     */
+    @lombok.Value
+    public static class OutboundStats {
+        OverflowPolicy overflowPolicy;
+        long sendTimeLimitMs;
+        int bufferSizeLimit;
+        int sessions;
+        long bufferedBytes;
+        long dropped;
+        long conflated;
+        long slowConsumerDisconnects;
+        List<SessionBuffer> buffers;
+    }
+
+    /**
+     * Estado do buffer de saída de uma sessão
+     */
+    @lombok.Value
+    public static class SessionBuffer {
+        String sessionId;
+        long bufferedBytes;
+        int bufferedMessages;
+        long sent;
+        long dropped;
+        long conflated;
+    }
+}
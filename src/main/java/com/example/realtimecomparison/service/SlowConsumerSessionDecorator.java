@@ -0,0 +1,307 @@
+package com.example.realtimecomparison.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sessão WebSocket com buffer de saída limitado. sendMessage apenas enfileira e retorna; uma única
+ * tarefa por sessão esvazia o buffer em ordem, de modo que um cliente que parou de ler não bloqueia
+ * a thread do canal de saída nem os demais clientes.
+ * Se o envio em andamento passa de sendTimeLimit a sessão é encerrada (no próximo envio ou na
+ * varredura do SlowConsumerManager); se o buffer passa de bufferSizeLimit aplica-se a política de
+ * overflow configurada. Só frames MESSAGE podem ser descartados; CONNECTED, RECEIPT, ERROR e
+ * heartbeats são sempre enviados. A conflação vale apenas para os deltas de /topic/metrics: notificações
+ * distintas nunca são fundidas.
+ */
+public class SlowConsumerSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerSessionDecorator.class);
+
+    private final SlowConsumerManager manager;
+    private final Executor sender;
+    private final Drain drainTask = new Drain();
+
+    // Protegidos por this
+    private final Deque<Pending> buffer = new ArrayDeque<>();
+    private long bufferedBytes;
+    private boolean draining;
+
+    private volatile long sendStartNanos;
+    private volatile boolean closed;
+
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+
+    SlowConsumerSessionDecorator(WebSocketSession session, SlowConsumerManager manager, Executor sender) {
+        super(session);
+        this.manager = manager;
+        this.sender = sender;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+
+        if (sendTimedOut()) {
+            disconnect("envio bloqueado há mais de " + manager.getSendTimeLimitMs() + "ms");
+            return;
+        }
+
+        SlowConsumerManager.OverflowPolicy policy = manager.getOverflowPolicy();
+        Pending pending = new Pending(message, policy == SlowConsumerManager.OverflowPolicy.CONFLATE);
+        boolean overflow = false;
+        boolean startDrain = false;
+        synchronized (this) {
+            buffer.addLast(pending);
+            bufferedBytes += pending.size;
+            if (bufferedBytes > manager.getBufferSizeLimit()) {
+                if (policy == SlowConsumerManager.OverflowPolicy.DISCONNECT) {
+                    overflow = true;
+                } else {
+                    shrink(policy);
+                }
+            }
+            if (!overflow && !draining) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+
+        if (overflow) {
+            disconnect("buffer de saída acima de " + manager.getBufferSizeLimit() + " bytes");
+        } else if (startDrain) {
+            sender.execute(drainTask);
+        }
+    }
+
+    /**
+     * Chamada periodicamente pelo SlowConsumerManager: encerra a sessão se o envio em andamento
+     * passou do limite e retoma o esvaziamento de um buffer cuja tarefa foi recusada
+     */
+    void sweep() {
+        if (closed) {
+            return;
+        }
+        if (sendTimedOut()) {
+            disconnect("envio bloqueado há mais de " + manager.getSendTimeLimitMs() + "ms");
+            return;
+        }
+        synchronized (this) {
+            if (draining || buffer.isEmpty()) {
+                return;
+            }
+            draining = true;
+        }
+        sender.execute(drainTask);
+    }
+
+    private boolean sendTimedOut() {
+        long started = sendStartNanos;
+        return started != 0 && System.nanoTime() - started > manager.getSendTimeLimitNanos();
+    }
+
+    /**
+     * Reduz o buffer até o limite com o lock da sessão: CONFLATE primeiro descarta os deltas de
+     * métricas substituídos por outro mais recente; depois descartam-se os frames MESSAGE mais antigos
+     */
+    private void shrink(SlowConsumerManager.OverflowPolicy policy) {
+        if (policy == SlowConsumerManager.OverflowPolicy.CONFLATE) {
+            Set<String> seen = new HashSet<>();
+            Iterator<Pending> newestFirst = buffer.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Pending candidate = newestFirst.next();
+                if (candidate.key != null && !seen.add(candidate.key)) {
+                    newestFirst.remove();
+                    bufferedBytes -= candidate.size;
+                    conflated.increment();
+                    manager.recordConflated();
+                }
+            }
+        }
+        // A mensagem mais recente é sempre mantida, mesmo que sozinha passe do limite
+        Pending newest = buffer.peekLast();
+        Iterator<Pending> oldestFirst = buffer.iterator();
+        while (bufferedBytes > manager.getBufferSizeLimit() && oldestFirst.hasNext()) {
+            Pending candidate = oldestFirst.next();
+            if (candidate.droppable && candidate != newest) {
+                oldestFirst.remove();
+                bufferedBytes -= candidate.size;
+                dropped.increment();
+                manager.recordDropped(1);
+            }
+        }
+    }
+
+    /**
+     * Envia as mensagens do buffer em ordem até esvaziá-lo; executada por no máximo uma tarefa por vez
+     */
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = buffer.pollFirst();
+                if (next == null || closed) {
+                    draining = false;
+                    return;
+                }
+                bufferedBytes -= next.size;
+            }
+
+            sendStartNanos = System.nanoTime();
+            try {
+                getDelegate().sendMessage(next.message);
+                messagesSent.increment();
+            } catch (Exception e) {
+                logger.debug("Falha ao enviar para sessão WebSocket {}", getId(), e);
+                synchronized (this) {
+                    draining = false;
+                }
+                // A mensagem que falhou também é perdida; o restante do buffer é contado no disconnect
+                dropped.increment();
+                manager.recordDropped(1);
+                disconnect("falha no envio: " + e.getMessage());
+                return;
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+
+    /**
+     * Tarefa de envio recusada pelo pool cheio: com DISCONNECT a sessão é encerrada; nas demais
+     * políticas as mensagens ficam no buffer (limitado pela política) até a próxima tentativa
+     */
+    private void rejected() {
+        synchronized (this) {
+            draining = false;
+        }
+        if (manager.getOverflowPolicy() == SlowConsumerManager.OverflowPolicy.DISCONNECT) {
+            disconnect("nenhuma thread de envio disponível");
+        }
+    }
+
+    /**
+     * Encerra a sessão de um consumidor lento, descartando o que ainda estava no buffer
+     */
+    private void disconnect(String reason) {
+        int discarded;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            discarded = buffer.size();
+            buffer.clear();
+            bufferedBytes = 0;
+        }
+        dropped.add(discarded);
+        manager.recordDropped(discarded);
+        manager.recordDisconnect();
+        logger.warn("Sessão WebSocket {} encerrada por consumo lento: {}", getId(), reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            logger.debug("Falha ao encerrar sessão WebSocket {}", getId(), e);
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        closed = true;
+        super.close(status);
+    }
+
+    public synchronized long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    public synchronized int getBufferedMessages() {
+        return buffer.size();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    /**
+     * Indica se o frame é um STOMP MESSAGE (os únicos que a política de overflow pode descartar)
+     */
+    static boolean isMessageFrame(WebSocketMessage<?> message) {
+        return message instanceof TextMessage text && text.getPayload().startsWith("MESSAGE\n");
+    }
+
+    /**
+     * Chave de conflação: o destino do frame MESSAGE quando é o stream de métricas (null nos demais)
+     */
+    static String keyOf(WebSocketMessage<?> message) {
+        if (!isMessageFrame(message)) {
+            return null;
+        }
+        String payload = ((TextMessage) message).getPayload();
+        int headersEnd = payload.indexOf("\n\n");
+        int start = payload.indexOf("\ndestination:");
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += "\ndestination:".length();
+        int end = payload.indexOf('\n', start);
+        if (end < 0 || !payload.startsWith(MetricsStreamPublisher.METRICS_DESTINATION, start)
+                || end != start + MetricsStreamPublisher.METRICS_DESTINATION.length()) {
+            return null;
+        }
+        return MetricsStreamPublisher.METRICS_DESTINATION;
+    }
+
+    /**
+     * Tarefa de envio da sessão; identificável pelo RejectedExecutionHandler do pool
+     */
+    final class Drain implements Runnable {
+        @Override
+        public void run() {
+            drain();
+        }
+
+        void rejected() {
+            SlowConsumerSessionDecorator.this.rejected();
+        }
+    }
+
+    private static final class Pending {
+        final WebSocketMessage<?> message;
+        final boolean droppable;
+        final String key;
+        final int size;
+
+        Pending(WebSocketMessage<?> message, boolean conflate) {
+            this.message = message;
+            this.droppable = isMessageFrame(message);
+            this.key = conflate ? keyOf(message) : null;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+@Component
+public class SseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseManager.class);
+    private final Map<String, SseClient> clients = new ConcurrentHashMap<>();
+    private final TopicIndex<SseClient> topicIndex = new TopicIndex<>();
+
+    // Custo de cada broadcast para todas as conexões, em microssegundos
+    private final LatencyHistogram broadcastMicros = new LatencyHistogram();
+    private final LongAdder eventsSent = new LongAdder();
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private NotificationLog notificationLog;
+
+    @Autowired
+    private FanoutExecutor fanoutExecutor;
+
+    /**
+     * Registra uma conexão SSE que já enviou todas as notificações até o cursor informado,
+     * assinando os tópicos indicados (nulo = todos). Com replay, o cliente fica visível aos broadcasts
+     * antes da leitura das notificações perdidas, mas os broadcasts ficam retidos no cliente até o
+     * replay ser enviado. O replay lê página a página a partir do cursor (a leitura, que pode ir ao
+     * banco, acontece sem lock) até a sequência publicada no registro; o que vier depois chega pelos
+     * broadcasts retidos. Retorna quantas notificações foram reenviadas.
+     */
+    public int addClient(String clientId, long cursor, Set<String> topics, SseEmitter emitter,
+                         LongFunction<List<Notification>> replay) {
+        SseClient client = new SseClient(clientId, cursor, topics, emitter, replay != null);
+        SseClient previous = clients.put(clientId, client);
+        topicIndex.add(client, topics);
+        int replayed = 0;
+        if (replay != null) {
+            try {
+                long head = notificationLog.getLastSequence();
+                long after = cursor;
+                List<Notification> page;
+                while (after < head && clients.get(clientId) == client && !(page = replay.apply(after)).isEmpty()) {
+                    after = NotificationService.nextCursor(after, page);
+                    client.lock.lock();
+                    try {
+                        replayed += deliver(client, page);
+                    } finally {
+                        client.lock.unlock();
+                    }
+                }
+            } finally {
+                client.lock.lock();
+                try {
+                    // Ids repetidos entre o replay e os broadcasts retidos são descartados por lastEventId
+                    List<Notification> held = client.held;
+                    client.held = null;
+                    replayed += deliver(client, held);
+                } finally {
+                    client.lock.unlock();
+                }
+            }
+        }
+        if (previous != null) {
+            topicIndex.remove(previous, previous.topics);
+            previous.emitter.complete();
+        }
+        logger.debug("Cliente SSE {} conectado. Total de conexões: {}", clientId, clients.size());
+
+        emitter.onCompletion(() -> unregister(client));
+        emitter.onTimeout(() -> {
+            logger.debug("Timeout da conexão SSE {}", clientId);
+            emitter.complete();
+        });
+        emitter.onError(throwable -> unregister(client));
+        return replayed;
+    }
+
+    /**
+     * Notifica todas as conexões SSE com uma nova notificação
+     */
+    public void notifyClients(Notification notification) {
+        notifyClients(List.of(notification));
+    }
+
+    /**
+     * Notifica todas as conexões SSE com uma lista de notificações
+     */
+    public void notifyClients(List<Notification> notifications) {
+        if (clients.isEmpty() || notifications.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        LongAdder notifiedCount = new LongAdder();
+        fanoutExecutor.forEach(topicIndex.match(notifications), client -> {
+            if (send(client, notifications) > 0) {
+                notifiedCount.increment();
+            }
+        });
+        broadcastMicros.record((System.nanoTime() - start) / 1_000);
+
+        logger.debug("Notificados {} clientes SSE com {} notificações", notifiedCount.sum(), notifications.size());
+    }
+
+    /**
+     * Retorna o número de conexões SSE abertas
+     */
+    public int getConnectedClientsCount() {
+        return clients.size();
+    }
+
+    /**
+     * Conexões por tópico ("*" = todos os tópicos)
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        return topicIndex.getSubscriberCounts();
+    }
+
+    /**
+     * Total de eventos enviados desde a inicialização
+     */
+    public long getEventsSent() {
+        return eventsSent.sum();
+    }
+
+    /**
+     * Distribuição do custo de broadcast (µs)
+     */
+    public LatencyHistogram.Snapshot getBroadcastCost() {
+        return broadcastMicros.snapshot();
+    }
+
+    /**
+     * Envia ao cliente as notificações posteriores ao último evento enviado, ou as retém enquanto o
+     * replay do cliente não terminou. Com o lock do cliente (ReentrantLock, que não prende a thread
+     * portadora durante o envio bloqueante) para que replay e broadcast não intercalem nem dupliquem
+     * eventos. Retorna quantos eventos foram enviados.
+     */
+    private int send(SseClient client, List<Notification> notifications) {
+        client.lock.lock();
+        try {
+            if (client.held != null) {
+                client.held.addAll(notifications);
+                return 0;
+            }
+            return deliver(client, notifications);
+        } finally {
+            client.lock.unlock();
+        }
+    }
+
+    /**
+     * Envia as notificações dos tópicos do cliente posteriores ao último evento enviado, na ordem;
+     * chamado com o lock do cliente
+     */
+    private int deliver(SseClient client, List<Notification> notifications) {
+        int sent = 0;
+        try {
+            for (Notification notification : notifications) {
+                if (notification.getId() <= client.lastEventId || !Topics.matches(client.topics, notification)) {
+                    continue;
+                }
+                client.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(notification.getId()))
+                        .name("notification")
+                        .data(notificationLog.payloadOf(notification), MediaType.APPLICATION_JSON));
+                client.lastEventId = notification.getId();
+                sent++;
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Conexão SSE {} encerrada durante envio", client.clientId);
+            unregister(client);
+            client.emitter.completeWithError(e);
+        }
+
+        if (sent > 0) {
+            eventsSent.add(sent);
+            metricsService.incrementNotificationCount("sse", sent);
+        }
+        return sent;
+    }
+
+    private void unregister(SseClient client) {
+        clients.remove(client.clientId, client);
+        topicIndex.remove(client, client.topics);
+    }
+
+    /**
+     * Conexão SSE, seus tópicos e o id do último evento enviado
+     */
+    private static final class SseClient {
+        final String clientId;
+        final Set<String> topics;
+        final SseEmitter emitter;
+        final ReentrantLock lock = new ReentrantLock();
+
+        // Protegidos por lock; held não é nulo enquanto o replay não foi enviado
+        long lastEventId;
+        List<Notification> held;
+
+        SseClient(String clientId, long lastEventId, Set<String> topics, SseEmitter emitter, boolean replaying) {
+            this.clientId = clientId;
+            this.lastEventId = lastEventId;
+            this.topics = topics;
+            this.emitter = emitter;
+            this.held = replaying ? new ArrayList<>() : null;
+        }
+    }
+}
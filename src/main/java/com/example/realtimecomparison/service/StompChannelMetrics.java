@@ -0,0 +1,75 @@
+package com.example.realtimecomparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Interceptor dos canais STOMP (clientInbound/clientOutbound): conta as mensagens por tipo e mede o
+ * tempo de processamento de cada mensagem na thread do canal. Os meters são criados uma vez por
+ * tipo de mensagem. O início do processamento viaja num header da própria mensagem (e não num
+ * ThreadLocal), o que vale para qualquer executor do canal, inclusive de threads virtuais.
+ */
+public class StompChannelMetrics implements ExecutorChannelInterceptor {
+
+    /**
+     * Header com o Timer.Sample iniciado em beforeHandle
+     */
+    public static final String HANDLE_SAMPLE_HEADER = "realtime.handleSample";
+
+    private final Map<SimpMessageType, Counter> messages = new EnumMap<>(SimpMessageType.class);
+    private final MeterRegistry registry;
+    private final Timer handleTimer;
+
+    public StompChannelMetrics(MeterRegistry registry, String channel) {
+        this.registry = registry;
+        for (SimpMessageType type : SimpMessageType.values()) {
+            messages.put(type, Counter.builder("realtime.stomp.messages")
+                    .description("Mensagens que passaram pelo canal STOMP")
+                    .tag("channel", channel)
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        this.handleTimer = Timer.builder("realtime.stomp.handle")
+                .description("Processamento de uma mensagem na thread do canal STOMP")
+                .tag("channel", channel)
+                .register(registry);
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type != null) {
+            messages.get(type).increment();
+        }
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler) {
+        // Mantém o tipo do accessor (STOMP/Simp) para os handlers seguintes
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(HANDLE_SAMPLE_HEADER, Timer.start(registry));
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, Exception ex) {
+        if (message.getHeaders().get(HANDLE_SAMPLE_HEADER) instanceof Timer.Sample sample) {
+            sample.stop(handleTimer);
+        }
+    }
+}
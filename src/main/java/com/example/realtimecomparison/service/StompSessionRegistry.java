@@ -0,0 +1,306 @@
+package com.example.realtimecomparison.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro das sessões STOMP conectadas. A sessão entra no SessionConnectedEvent e sai no
+ * SessionDisconnectEvent; os interceptors dos canais de entrada e saída contam mensagens, bytes de
+ * payload e assinaturas de cada sessão. Tudo fica em mapas concorrentes e LongAdders, sem locks
+ * no caminho das mensagens.
+ */
+@Component
+public class StompSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompSessionRegistry.class);
+
+    /**
+     * Atributo da sessão com o transporte (websocket, xhr_streaming, xhr, eventsource...)
+     */
+    public static final String TRANSPORT_ATTRIBUTE = "realtime.transport";
+
+    public static final int MAX_TOP = 100;
+
+    private final Map<String, SessionCounters> sessions = new ConcurrentHashMap<>();
+
+    // Totais desde a inicialização, incluindo sessões já encerradas
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final ChannelInterceptor inboundInterceptor = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            onInbound(message);
+            return message;
+        }
+    };
+
+    private final ChannelInterceptor outboundInterceptor = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            onOutbound(message);
+            return message;
+        }
+    };
+
+    /**
+     * Decora o handler STOMP para gravar o transporte SockJS nos atributos da sessão
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+                session.getAttributes().put(TRANSPORT_ATTRIBUTE, transportOf(session));
+                super.afterConnectionEstablished(session);
+            }
+        };
+    }
+
+    public ChannelInterceptor getInboundInterceptor() {
+        return inboundInterceptor;
+    }
+
+    public ChannelInterceptor getOutboundInterceptor() {
+        return outboundInterceptor;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Map<String, Object> headers = event.getMessage().getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null) {
+            return;
+        }
+        // Os atributos da sessão estão na mensagem CONNECT original, anexada ao CONNECT_ACK
+        String transport = "unknown";
+        Object connect = headers.get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (connect instanceof Message<?> connectMessage) {
+            Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(connectMessage.getHeaders());
+            if (attributes != null && attributes.get(TRANSPORT_ATTRIBUTE) instanceof String value) {
+                transport = value;
+            }
+        }
+        String user = event.getUser() != null ? event.getUser().getName() : null;
+        sessions.putIfAbsent(sessionId, new SessionCounters(sessionId, user, transport, System.currentTimeMillis()));
+        connects.increment();
+        logger.debug("Sessão STOMP {} conectada via {}", sessionId, transport);
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        // O evento pode ser publicado mais de uma vez para a mesma sessão
+        if (sessions.remove(event.getSessionId()) != null) {
+            disconnects.increment();
+            logger.debug("Sessão STOMP {} encerrada ({})", event.getSessionId(), event.getCloseStatus());
+        }
+    }
+
+    private void onInbound(Message<?> message) {
+        Map<String, Object> headers = message.getHeaders();
+        int bytes = payloadSize(message);
+        messagesIn.increment();
+        bytesIn.add(bytes);
+        SessionCounters counters = counters(headers);
+        if (counters == null) {
+            return;
+        }
+        counters.messagesIn.increment();
+        counters.bytesIn.add(bytes);
+
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (type == SimpMessageType.SUBSCRIBE && subscriptionId != null) {
+            String destination = SimpMessageHeaderAccessor.getDestination(headers);
+            counters.subscriptions.put(subscriptionId, destination != null ? destination : "");
+        } else if (type == SimpMessageType.UNSUBSCRIBE && subscriptionId != null) {
+            counters.subscriptions.remove(subscriptionId);
+        }
+    }
+
+    private void onOutbound(Message<?> message) {
+        int bytes = payloadSize(message);
+        messagesOut.increment();
+        bytesOut.add(bytes);
+        SessionCounters counters = counters(message.getHeaders());
+        if (counters != null) {
+            counters.messagesOut.increment();
+            counters.bytesOut.add(bytes);
+        }
+    }
+
+    private SessionCounters counters(Map<String, Object> headers) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        return sessionId == null ? null : sessions.get(sessionId);
+    }
+
+    /**
+     * Sessões STOMP conectadas
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Agregados das sessões conectadas e as top sessões com mais bytes trocados
+     */
+    public SessionStats getStats(int top) {
+        int limit = Math.max(0, Math.min(top, MAX_TOP));
+        long now = System.currentTimeMillis();
+        Map<String, Integer> byTransport = new TreeMap<>();
+        Map<String, Integer> byDestination = new TreeMap<>();
+        int subscriptions = 0;
+        long totalDurationMs = 0;
+        long maxDurationMs = 0;
+
+        // Heap mínimo de tamanho limit: O(n log top) sem ordenar todas as sessões
+        Comparator<SessionSnapshot> byBytes = Comparator.comparingLong(s -> s.getBytesIn() + s.getBytesOut());
+        PriorityQueue<SessionSnapshot> heaviest = new PriorityQueue<>(Math.max(1, limit + 1), byBytes);
+
+        for (SessionCounters counters : sessions.values()) {
+            SessionSnapshot snapshot = counters.snapshot(now);
+            byTransport.merge(snapshot.getTransport(), 1, Integer::sum);
+            for (String destination : counters.subscriptions.values()) {
+                byDestination.merge(destination, 1, Integer::sum);
+            }
+            subscriptions += snapshot.getSubscriptions().size();
+            totalDurationMs += snapshot.getConnectedMs();
+            maxDurationMs = Math.max(maxDurationMs, snapshot.getConnectedMs());
+            if (limit > 0) {
+                heaviest.offer(snapshot);
+                if (heaviest.size() > limit) {
+                    heaviest.poll();
+                }
+            }
+        }
+
+        List<SessionSnapshot> topSessions = new ArrayList<>(heaviest);
+        topSessions.sort(byBytes.reversed());
+        int live = sessions.size();
+        return new SessionStats(
+            live,
+            connects.sum(),
+            disconnects.sum(),
+            byTransport,
+            subscriptions,
+            byDestination,
+            messagesIn.sum(),
+            messagesOut.sum(),
+            bytesIn.sum(),
+            bytesOut.sum(),
+            live == 0 ? 0 : totalDurationMs / live,
+            maxDurationMs,
+            topSessions
+        );
+    }
+
+    private static int payloadSize(Message<?> message) {
+        return message.getPayload() instanceof byte[] payload ? payload.length : 0;
+    }
+
+    /**
+     * Transporte real da sessão: o segmento final da URL SockJS ou websocket para conexões nativas
+     */
+    private static String transportOf(WebSocketSession session) {
+        WebSocketSession delegate = WebSocketSessionDecorator.unwrap(session);
+        URI uri = session.getUri();
+        if (delegate instanceof SockJsSession && uri != null) {
+            String path = uri.getPath();
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+        return "websocket";
+    }
+
+    /**
+     * Contadores de uma sessão, atualizados pelos interceptors sem lock
+     */
+    private static final class SessionCounters {
+        final String sessionId;
+        final String user;
+        final String transport;
+        final long connectedAt;
+        final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+        final LongAdder messagesIn = new LongAdder();
+        final LongAdder messagesOut = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+
+        SessionCounters(String sessionId, String user, String transport, long connectedAt) {
+            this.sessionId = sessionId;
+            this.user = user;
+            this.transport = transport;
+            this.connectedAt = connectedAt;
+        }
+
+        SessionSnapshot snapshot(long now) {
+            return new SessionSnapshot(sessionId, user, transport, connectedAt, now - connectedAt,
+                    List.copyOf(subscriptions.values()), messagesIn.sum(), messagesOut.sum(),
+                    bytesIn.sum(), bytesOut.sum());
+        }
+    }
+
+    /**
+     * Estado de uma sessão; bytes são os payloads STOMP (sem cabeçalhos nem enquadramento SockJS)
+     */
+    @lombok.Value
+    public static class SessionSnapshot {
+        String sessionId;
+        String user;
+        String transport;
+        long connectedAt;
+        long connectedMs;
+        List<String> subscriptions;
+        long messagesIn;
+        long messagesOut;
+        long bytesIn;
+        long bytesOut;
+    }
+
+    /**
+     * Agregados das sessões conectadas; contadores de mensagens e bytes são totais desde a inicialização
+     */
+    @lombok.Value
+    public static class SessionStats {
+        int sessions;
+        long connectsTotal;
+        long disconnectsTotal;
+        Map<String, Integer> sessionsByTransport;
+        int subscriptions;
+        Map<String, Integer> subscriptionsByDestination;
+        long messagesIn;
+        long messagesOut;
+        long bytesIn;
+        long bytesOut;
+        long averageConnectedMs;
+        long maxConnectedMs;
+        List<SessionSnapshot> topSessions;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.ClientCursor;
+import com.example.realtimecomparison.repository.ClientCursorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de assinaturas dos clientes de polling com a última sequência confirmada por cada clientId.
+ * Mantido em memória e gravado periodicamente na tabela client_cursors.
+ */
+@Component
+public class SubscriptionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionRegistry.class);
+
+    @Autowired
+    private ClientCursorRepository clientCursorRepository;
+
+    @Value("${realtime.subscriptions.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Retorna o cursor confirmado do cliente, consultando o checkpoint apenas no primeiro acesso
+     */
+    public OptionalLong getCursor(String clientId) {
+        // touch dentro do compute: o checkpoint não remove uma assinatura tocada depois da sua verificação
+        Subscription subscription = subscriptions.computeIfPresent(clientId, (id, existing) -> existing.touch());
+        if (subscription == null) {
+            subscription = clientCursorRepository.findById(clientId)
+                    .map(cursor -> subscriptions.compute(clientId, (id, existing) ->
+                            (existing != null ? existing : new Subscription(cursor.getLastSequence(), cursor.getLastSequence())).touch()))
+                    .orElse(null);
+        }
+        if (subscription == null) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(subscription.cursor.get());
+    }
+
+    /**
+     * Avança o cursor do cliente (nunca retrocede)
+     */
+    public void acknowledge(String clientId, long sequence) {
+        subscriptions.compute(clientId, (id, existing) -> {
+            Subscription subscription = existing != null ? existing : new Subscription(0, -1);
+            subscription.cursor.accumulateAndGet(sequence, Math::max);
+            return subscription.touch();
+        });
+    }
+
+    /**
+     * Número de clientes registrados
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Quantas sequências o cliente mais atrasado ainda não confirmou
+     */
+    public long getMaxLag(long lastSequence) {
+        long minCursor = lastSequence;
+        for (Subscription subscription : subscriptions.values()) {
+            minCursor = Math.min(minCursor, subscription.cursor.get());
+        }
+        return Math.max(0, lastSequence - minCursor);
+    }
+
+    /**
+     * Grava os cursores alterados e descarta assinaturas ociosas
+     */
+    @Scheduled(fixedDelayString = "${realtime.subscriptions.checkpoint-interval-ms:5000}")
+    public void checkpoint() {
+        long now = System.currentTimeMillis();
+        List<ClientCursor> changed = new ArrayList<>();
+        List<Subscription> saved = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+
+        subscriptions.forEach((clientId, subscription) -> {
+            if (now - subscription.lastSeen > idleTimeoutMs) {
+                expired.add(clientId);
+                return;
+            }
+            long cursor = subscription.cursor.get();
+            if (cursor != subscription.checkpointed) {
+                changed.add(new ClientCursor(clientId, cursor, Instant.ofEpochMilli(subscription.lastSeen)));
+                saved.add(subscription);
+            }
+        });
+
+        if (!changed.isEmpty()) {
+            clientCursorRepository.saveAll(changed);
+            // Só depois de gravado: se o saveAll falhar, o próximo checkpoint tenta de novo
+            for (int i = 0; i < saved.size(); i++) {
+                saved.get(i).checkpointed = changed.get(i).getLastSequence();
+            }
+            logger.debug("Checkpoint de {} cursores de clientes", changed.size());
+        }
+        if (!expired.isEmpty()) {
+            // Apaga no banco antes de tirar da memória: um getCursor nesse intervalo ainda encontra a
+            // assinatura em memória e não reidrata o checkpoint que está sendo apagado
+            clientCursorRepository.deleteAllById(expired);
+            int removed = 0;
+            for (String clientId : expired) {
+                Subscription remaining = subscriptions.computeIfPresent(clientId, (id, subscription) ->
+                        now - subscription.lastSeen > idleTimeoutMs ? null : subscription);
+                if (remaining != null) {
+                    // O cliente voltou depois da varredura: a linha já foi apagada, gravar de novo
+                    remaining.checkpointed = -1;
+                } else {
+                    removed++;
+                }
+            }
+            logger.debug("{} assinaturas ociosas removidas", removed);
+        }
+    }
+
+    /**
+     * Assinatura de um cliente
+     */
+    private static final class Subscription {
+        final AtomicLong cursor;
+        volatile long lastSeen = System.currentTimeMillis();
+
+        // Último valor gravado no checkpoint (acessado apenas pela thread do agendador)
+        long checkpointed;
+
+        Subscription(long cursor, long checkpointed) {
+            this.cursor = new AtomicLong(cursor);
+            this.checkpointed = checkpointed;
+        }
+
+        Subscription touch() {
+            lastSeen = System.currentTimeMillis();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice tópico → clientes usado no fan-out: uma publicação só percorre os clientes assinantes
+ * dos tópicos envolvidos e os que assinam todos os tópicos.
+ */
+public class TopicIndex<T> {
+
+    private final Map<String, Set<T>> byTopic = new ConcurrentHashMap<>();
+    private final Set<T> allTopics = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registra o cliente nos tópicos informados (nulo = todos os tópicos)
+     */
+    public void add(T client, Set<String> topics) {
+        if (topics == null) {
+            allTopics.add(client);
+            return;
+        }
+        for (String topic : topics) {
+            byTopic.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(client);
+        }
+    }
+
+    /**
+     * Remove o cliente dos tópicos em que foi registrado
+     */
+    public void remove(T client, Set<String> topics) {
+        if (topics == null) {
+            allTopics.remove(client);
+            return;
+        }
+        for (String topic : topics) {
+            Set<T> clients = byTopic.get(topic);
+            if (clients != null) {
+                clients.remove(client);
+            }
+        }
+    }
+
+    /**
+     * Clientes interessados em ao menos uma das notificações
+     */
+    public Collection<T> match(List<Notification> notifications) {
+        Set<String> topics = new HashSet<>();
+        for (Notification notification : notifications) {
+            topics.add(notification.getTopic());
+        }
+
+        List<Set<T>> sources = new ArrayList<>();
+        if (!allTopics.isEmpty()) {
+            sources.add(allTopics);
+        }
+        for (String topic : topics) {
+            Set<T> clients = byTopic.get(topic);
+            if (clients != null && !clients.isEmpty()) {
+                sources.add(clients);
+            }
+        }
+
+        if (sources.isEmpty()) {
+            return Set.of();
+        }
+        if (sources.size() == 1) {
+            // Caso comum (um tópico ou só assinantes de todos): o próprio conjunto concorrente, sem cópia
+            return sources.get(0);
+        }
+        Set<T> matched = new HashSet<>();
+        sources.forEach(matched::addAll);
+        return matched;
+    }
+
+    /**
+     * Quantos clientes assinam cada tópico ("*" = todos os tópicos)
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        counts.put("*", allTopics.size());
+        byTopic.forEach((topic, clients) -> {
+            if (!clients.isEmpty()) {
+                counts.put(topic, clients.size());
+            }
+        });
+        return counts;
+    }
+}
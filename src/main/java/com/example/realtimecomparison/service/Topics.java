@@ -0,0 +1,71 @@
+package com.example.realtimecomparison.service;
+
+import com.example.realtimecomparison.entity.Notification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tópicos das notificações e filtros de assinatura. Um conjunto de tópicos nulo representa
+ * a assinatura de todos os tópicos.
+ */
+public final class Topics {
+
+    private static final Pattern VALID_TOPIC = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private Topics() {
+    }
+
+    /**
+     * Converte a lista separada por vírgulas de ?topics= (nulo ou vazio = todos os tópicos)
+     */
+    public static Set<String> parse(String topics) {
+        if (topics == null || topics.isBlank()) {
+            return null;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String topic : topics.split(",")) {
+            if (!topic.isBlank()) {
+                parsed.add(validate(topic.trim()));
+            }
+        }
+        return parsed.isEmpty() ? null : Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * Valida o nome de um tópico (letras, dígitos, '_' e '-', até 64 caracteres)
+     */
+    public static String validate(String topic) {
+        if (topic == null || !VALID_TOPIC.matcher(topic).matches()) {
+            throw new IllegalArgumentException("Tópico inválido: " + topic);
+        }
+        return topic;
+    }
+
+    /**
+     * Indica se a notificação pertence a algum dos tópicos assinados
+     */
+    public static boolean matches(Set<String> topics, Notification notification) {
+        return topics == null || topics.contains(notification.getTopic());
+    }
+
+    /**
+     * Mantém apenas as notificações dos tópicos assinados
+     */
+    public static List<Notification> filter(List<Notification> notifications, Set<String> topics) {
+        if (topics == null) {
+            return notifications;
+        }
+        List<Notification> filtered = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            if (topics.contains(notification.getTopic())) {
+                filtered.add(notification);
+            }
+        }
+        return filtered;
+    }
+}
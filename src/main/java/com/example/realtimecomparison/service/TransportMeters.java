@@ -0,0 +1,87 @@
+package com.example.realtimecomparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters Micrometer dos caminhos quentes de publicação e entrega. Todos são registrados uma vez e
+ * reaproveitados, de modo que o custo por chamada é o de um Timer/Counter (sem busca no registry).
+ */
+@Component
+public class TransportMeters {
+
+    private final MeterRegistry registry;
+
+    private final Timer publishTimer;
+    private final DistributionSummary publishBatchSize;
+    private final Counter notificationsPublished;
+
+    // Por transporte/técnica; poucas chaves fixas, criadas no primeiro uso
+    private final Map<String, Timer> fanoutTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> pollResponseSizes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> deliveryTimers = new ConcurrentHashMap<>();
+
+    public TransportMeters(MeterRegistry registry) {
+        this.registry = registry;
+        this.publishTimer = Timer.builder("realtime.publish")
+                .description("Persistência e entrega de um lote de notificações a todos os transportes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.publishBatchSize = DistributionSummary.builder("realtime.publish.batch.size")
+                .description("Notificações por lote publicado")
+                .register(registry);
+        this.notificationsPublished = Counter.builder("realtime.notifications.published")
+                .description("Notificações publicadas")
+                .register(registry);
+    }
+
+    /**
+     * Registra a duração de um publishAll e o tamanho do lote
+     */
+    public void recordPublish(long nanos, int batchSize) {
+        publishTimer.record(nanos, TimeUnit.NANOSECONDS);
+        publishBatchSize.record(batchSize);
+        notificationsPublished.increment(batchSize);
+    }
+
+    /**
+     * Timer do fan-out de um transporte (long-polling, stomp, sse, websocket-raw)
+     */
+    public Timer fanout(String transport) {
+        return fanoutTimers.computeIfAbsent(transport, key -> Timer.builder("realtime.fanout")
+                .description("Entrega de um lote de notificações aos clientes de um transporte")
+                .tag("transport", key)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Registra quantas notificações uma resposta de polling entregou (0 = requisição vazia)
+     */
+    public void recordPollResponse(String technique, int notifications) {
+        pollResponseSizes.computeIfAbsent(technique, key -> DistributionSummary.builder("realtime.poll.notifications")
+                .description("Notificações entregues por resposta de polling")
+                .tag("technique", key)
+                .register(registry))
+                .record(notifications);
+    }
+
+    /**
+     * Registra a latência de entrega (publicação -> recebimento no cliente) confirmada por um cliente
+     */
+    public void recordDelivery(String technique, long nanos) {
+        deliveryTimers.computeIfAbsent(technique, key -> Timer.builder("realtime.delivery")
+                .description("Latência fim a fim da publicação ao recebimento no cliente")
+                .tag("technique", key)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
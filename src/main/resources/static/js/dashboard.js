@@ -6,9 +6,22 @@ let shortPollingInterval = null;
 let longPollingActive = false;
 let websocket = null;
 let stompClient = null;
+let metricsClient = null;
 let chart = null;
 let notificationCount = 0;
 
+// Cursores de sequência retornados pelo servidor (header X-Next-Cursor)
+const cursors = { short: null, long: null };
+
+// Último ETag recebido no short polling (enviado em If-None-Match)
+let shortPollingETag = null;
+
+// Identificadores estáveis para o servidor manter o cursor confirmado de cada técnica
+const clientIds = {
+    short: 'short-' + Date.now(),
+    long: 'long-' + Date.now()
+};
+
 // Métricas das técnicas
 const metrics = {
     short: { requests: 0, notifications: 0, latency: 0 },
@@ -24,8 +37,13 @@ document.addEventListener('DOMContentLoaded', () => {
     loadInitialData();
     initializeTooltips();
     
-    // Atualizar dados a cada 2 segundos
-    setInterval(updateRealtimeData, 2000);
+    // Métricas do servidor chegam por push em /topic/metrics (uma conexão, sem polling)
+    connectMetricsStream();
+    
+    // Relógio sincronizado com o servidor para as confirmações de entrega
+    syncClock();
+    setInterval(syncClock, CLOCK_SYNC_INTERVAL);
+    setInterval(flushReceipts, ACK_INTERVAL);
 });
 
 // Configurar event listeners com abordagem mais concisa
@@ -67,7 +85,7 @@ const initializeChart = () => {
                     borderWidth: 1
                 }, 
                 {
-                    label: 'Latência Média (ms)',
+                    label: 'Latência de Entrega Média (ms)',
                     data: [0, 0, 0],
                     backgroundColor: ['#ff6b6b', '#ffd93d', '#6bcf7f'],
                     borderColor: ['#ff6b6b', '#ffd93d', '#6bcf7f'],
@@ -114,49 +132,79 @@ const loadInitialData = async () => {
     }
 };
 
-// Atualizar dados em tempo real
-const updateRealtimeData = async () => {
-    try {
-        const { metrics } = await fetch('/api/dashboard/realtime')
-            .then(response => response.json());
-        
-        if (metrics?.techniqueMetrics) {
-            // Atualizar métricas do servidor usando destructuring
-            metrics.techniqueMetrics.forEach(({ technique: tech, requestCount, notificationCount, averageLatency }) => {
-                if (metrics[tech]) {
-                    Object.assign(metrics[tech], {
-                        requests: requestCount || 0,
-                        notifications: notificationCount || 0,
-                        latency: averageLatency || 0
-                    });
-                }
-            });
-            
-            // Atualizar displays
-            updateAllDisplays();
-        }
-        
-        // Atualizar estatísticas do Long Polling
-        updateLongPollingStats();
-    } catch (error) {
-        console.error('Erro ao atualizar dados em tempo real:', error);
-    }
+// Valores do stream de métricas ("técnica.campo" -> valor) e sequência do último aplicado
+const serverValues = {};
+let metricsSeq = 0;
+// Há um pedido de estado completo em andamento
+let fullMetricsRequested = false;
+
+// Conexão STOMP dedicada ao stream de métricas: não interfere na técnica WebSocket comparada
+const connectMetricsStream = () => {
+    metricsClient = Stomp.over(new SockJS('/ws'));
+    metricsClient.debug = null;
+    
+    metricsClient.connect({}, () => {
+        // Sequência recomeça a cada conexão (o servidor pode ter reiniciado)
+        metricsSeq = 0;
+        fullMetricsRequested = false;
+        // Estado completo sob demanda; depois apenas os valores alterados
+        metricsClient.subscribe('/topic/metrics', message => applyMetricsUpdate(JSON.parse(message.body)));
+        requestFullMetrics();
+    }, error => {
+        console.error('Stream de métricas desconectado, reconectando:', error);
+        setTimeout(connectMetricsStream, 5000);
+    });
 };
 
-// Atualizar estatísticas do Long Polling
-async function updateLongPollingStats() {
-    try {
-        const response = await fetch('/api/long-polling/stats');
-        const stats = await response.json();
-        
-        const waitingElement = document.getElementById('long-waiting');
-        if (waitingElement) {
-            waitingElement.textContent = stats.waitingClients || 0;
+// Pede o estado completo: /app/metrics responde uma única vez a cada assinatura
+const requestFullMetrics = () => {
+    if (fullMetricsRequested || !metricsClient || !metricsClient.connected) return;
+    fullMetricsRequested = true;
+    const subscription = metricsClient.subscribe('/app/metrics', message => {
+        subscription.unsubscribe();
+        fullMetricsRequested = false;
+        applyMetricsUpdate(JSON.parse(message.body));
+    });
+};
+
+// Aplica um estado completo ou delta. Um delta repetido ou antigo é ignorado; um delta que pula
+// sequências (algum se perdeu) é aplicado e pede um estado completo. Um estado completo mais antigo
+// que o último delta só preenche as chaves ainda ausentes e também pede um novo.
+const applyMetricsUpdate = ({ seq, full, values }) => {
+    if (full && seq < metricsSeq) {
+        Object.entries(values).forEach(([key, value]) => {
+            if (!(key in serverValues)) serverValues[key] = value;
+        });
+        requestFullMetrics();
+    } else if (full) {
+        metricsSeq = seq;
+        Object.assign(serverValues, values);
+    } else {
+        if (seq <= metricsSeq) return;
+        if (metricsSeq > 0 && seq > metricsSeq + 1) requestFullMetrics();
+        metricsSeq = seq;
+        Object.assign(serverValues, values);
+    }
+    
+    ['short', 'long'].forEach(tech => {
+        if (`${tech}.requests` in serverValues) {
+            metrics[tech] = {
+                requests: serverValues[`${tech}.requests`] || 0,
+                notifications: serverValues[`${tech}.notifications`] || 0,
+                latency: serverValues[`${tech}.delivery`] || 0
+            };
         }
-    } catch (error) {
-        console.error('Erro ao atualizar estatísticas do Long Polling:', error);
+    });
+    if ('websocket.delivery' in serverValues) {
+        metrics.ws.latency = serverValues['websocket.delivery'] || 0;
     }
-}
+    updateAllDisplays();
+    
+    const waitingElement = document.getElementById('long-waiting');
+    if (waitingElement) {
+        waitingElement.textContent = serverValues['long.waiting'] || 0;
+    }
+};
 
 // Inicializar tooltips do Bootstrap
 function initializeTooltips() {
@@ -194,18 +242,24 @@ const stopShortPolling = () => {
 };
 
 const performShortPolling = async () => {
-    const startTime = Date.now();
-    
     try {
-        const response = await fetch('/api/short-polling/notifications');
-        const notifications = await response.json();
+        const headers = shortPollingETag ? { 'If-None-Match': shortPollingETag } : {};
+        const response = await fetch(withCursor(`/api/short-polling/notifications?clientId=${clientIds.short}`, cursors.short),
+            { headers, cache: 'no-store' });
+        
+        // 304: nada novo desde a última resposta
+        const notifications = response.status === 304 ? [] : await response.json();
+        if (response.status !== 304) {
+            cursors.short = response.headers.get('X-Next-Cursor') ?? cursors.short;
+            shortPollingETag = response.headers.get('ETag');
+        }
         
-        const latency = Date.now() - startTime;
-        // Atualizar o display local para feedback imediato
-        updateLocalMetrics('short', { requests: 1, notifications: notifications.length, latency });
+        // Atualizar o display local para feedback imediato; a latência vem das confirmações de entrega
+        updateLocalMetrics('short', { requests: 1, notifications: notifications.length });
         updateChart();
         
         if (notifications.length > 0) {
+            recordReceipts('short', notifications);
             addToNotificationsLog('Short Polling', notifications);
         }
     } catch (error) {
@@ -234,20 +288,20 @@ const stopLongPolling = () => {
 const performLongPolling = async () => {
     if (!longPollingActive) return;
     
-    const startTime = Date.now();
-    const clientId = 'client-' + Date.now();
+    const clientId = clientIds.long;
     
     try {
         updateStatus('long', 'active', 'Ativo');
         
-        const response = await fetch(`/api/long-polling/notifications?clientId=${clientId}`);
+        const response = await fetch(withCursor(`/api/long-polling/notifications?clientId=${clientId}`, cursors.long));
         const notifications = await response.json();
+        cursors.long = response.headers.get('X-Next-Cursor') ?? cursors.long;
         
-        const latency = Date.now() - startTime;
-        updateLocalMetrics('long', { requests: 1, notifications: notifications.length, latency });
+        updateLocalMetrics('long', { requests: 1, notifications: notifications.length });
         updateChart();
         
         if (notifications.length > 0) {
+            recordReceipts('long', notifications);
             addToNotificationsLog('Long Polling', notifications);
         }
         
@@ -283,9 +337,11 @@ function connectWebSocket() {
             // Subscrever ao tópico de notificações
             stompClient.subscribe('/topic/notifications', function(message) {
                 const notification = JSON.parse(message.body);
-                // Não atualizar métricas aqui - o backend já registra
-                // Apenas atualizar o display local para feedback imediato
-                updateLocalMetrics('ws', { messages: 1, notifications: 1, latency: 0 });
+                recordReceipts('websocket', [notification]);
+                // Apenas contadores locais; a latência vem das confirmações de entrega
+                metrics.ws.messages += 1;
+                metrics.ws.notifications += 1;
+                updateTechniqueDisplay('ws');
                 updateChart();
                 addToNotificationsLog('WebSocket', [notification]);
             });
@@ -312,6 +368,77 @@ function disconnectWebSocket() {
     toggleButtons('ws', false);
 }
 
+// ==================== LATÊNCIA DE ENTREGA ====================
+
+const CLOCK_SYNC_INTERVAL = 60000;
+const CLOCK_SAMPLES = 5;
+const ACK_INTERVAL = 1000;
+// Maior lote aceito pelo servidor (DeliveryLatencyService.MAX_RECEIPTS)
+const MAX_RECEIPTS = 1000;
+
+// Melhor amostra de relógio (menor RTT); offset = relógio do servidor - relógio local
+const clock = { rttMs: -1, offsetMs: 0 };
+
+// Recebimentos ainda não confirmados, por técnica
+const pendingReceipts = { short: [], long: [], websocket: [] };
+
+// Estima RTT e offset como no NTP: a amostra de menor RTT tem o menor erro (no máximo RTT/2)
+const syncClock = async () => {
+    let best = null;
+    for (let i = 0; i < CLOCK_SAMPLES; i++) {
+        try {
+            const start = performance.now();
+            const { serverTime } = await fetch(`/api/delivery/clock?t=${Date.now()}`, { cache: 'no-store' })
+                .then(response => response.json());
+            const rttMs = performance.now() - start;
+            if (!best || rttMs < best.rttMs) {
+                best = { rttMs, offsetMs: serverTime - (Date.now() - rttMs / 2) };
+            }
+        } catch (error) {
+            console.error('Erro na sincronização de relógio:', error);
+        }
+    }
+    if (best) Object.assign(clock, best);
+};
+
+// Guarda o instante de recebimento (relógio local e monotônico) de cada notificação
+const recordReceipts = (technique, notifications) => {
+    const receivedAt = Date.now();
+    const receivedPerf = performance.now();
+    notifications.forEach(({ id, publishedAt }) => {
+        pendingReceipts[technique].push({ id, publishedAt, receivedAt, receivedPerf });
+    });
+};
+
+// Confirma os recebimentos em lotes de até MAX_RECEIPTS; heldMs desconta o tempo que cada um esperou aqui
+const flushReceipts = () => {
+    Object.entries(pendingReceipts).forEach(([technique, pending]) => {
+        // WebSocket confirma pela própria conexão; sem ela os recebimentos aguardam a reconexão
+        const viaStomp = technique === 'websocket';
+        if (viaStomp && !(stompClient && stompClient.connected)) return;
+        while (pending.length > 0) {
+            const now = performance.now();
+            const ack = {
+                technique,
+                rttMs: clock.rttMs,
+                clockOffsetMs: clock.offsetMs,
+                receipts: pending.splice(0, MAX_RECEIPTS).map(({ id, publishedAt, receivedAt, receivedPerf }) =>
+                    ({ id, publishedAt, receivedAt, heldMs: now - receivedPerf }))
+            };
+            if (viaStomp) {
+                stompClient.send('/app/delivery/ack', {}, JSON.stringify(ack));
+            } else {
+                fetch('/api/delivery/ack', {
+                    method: 'POST',
+                    headers: { 'Content-Type': 'application/json' },
+                    body: JSON.stringify(ack),
+                    keepalive: true
+                }).catch(error => console.error('Erro ao confirmar entregas:', error));
+            }
+        }
+    });
+};
+
 // ==================== CONTROLES GLOBAIS ====================
 
 function startAll() {
@@ -417,13 +544,20 @@ function updateMetrics(technique, newMetrics) {
         const metricsData = technique.techniqueMetrics || [];
         metricsData.forEach(metric => {
             const tech = metric.technique;
+            // Ignorar técnicas sem painel no dashboard (ex.: short-304)
+            if (!(tech in metrics)) return;
             metrics[tech] = {
                 requests: metric.requestCount || 0,
                 notifications: metric.notificationCount || 0,
-                latency: metric.averageLatency || 0
+                latency: metric.averageDeliveryLatency || 0
             };
             updateTechniqueDisplay(tech);
         });
+        const websocketMetric = metricsData.find(metric => metric.technique === 'websocket');
+        if (websocketMetric) {
+            metrics.ws.latency = websocketMetric.averageDeliveryLatency || 0;
+            updateTechniqueDisplay('ws');
+        }
     }
 }
 
@@ -567,6 +701,12 @@ function updateNotificationCount(count) {
 
 // ==================== FUNÇÕES AUXILIARES GLOBAIS ====================
 
+function withCursor(url, cursor) {
+    if (cursor === null) return url;
+    const separator = url.includes('?') ? '&' : '?';
+    return `${url}${separator}after=${encodeURIComponent(cursor)}`;
+}
+
 function exportChart() {
     if (chart) {
         const url = chart.toBase64Image();